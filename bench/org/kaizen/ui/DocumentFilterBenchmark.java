@@ -0,0 +1,99 @@
+package org.kaizen.ui;
+
+import java.util.concurrent.TimeUnit;
+import javax.swing.text.AbstractDocument;
+import javax.swing.text.BadLocationException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the cost of a keystroke passing through the segment document
+ * filters, for both accepted and rejected keys.
+ *
+ * Each accepted operation types two digits into an empty segment, the same as
+ * a user would
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+@State(Scope.Thread)
+public class DocumentFilterBenchmark {
+
+	private AbstractDocument timeHour;
+	private AbstractDocument durationHour;
+	private AbstractDocument minute;
+	private AbstractDocument second;
+
+	@Setup
+	public void setup() {
+		TimeField timeField = new TimeField();
+		timeField.set24HourClock(true);
+		timeHour = (AbstractDocument) timeField.getHourEditor().getDocument();
+
+		DurationField durationField = new DurationField();
+		durationHour = (AbstractDocument) durationField.getHourField().getDocument();
+		minute = (AbstractDocument) durationField.getMinuteField().getDocument();
+		second = (AbstractDocument) durationField.getSecondField().getDocument();
+	}
+
+	private static int type(AbstractDocument document, String first, String second) throws BadLocationException {
+		document.replace(0, document.getLength(), first, null);
+		document.replace(1, 0, second, null);
+		return document.getLength();
+	}
+
+	@Benchmark
+	public int timeHourAccepted() throws BadLocationException {
+		return type(timeHour, "2", "3");
+	}
+
+	@Benchmark
+	public int timeHourRejected() throws BadLocationException {
+		timeHour.replace(0, timeHour.getLength(), "x", null);
+		return timeHour.getLength();
+	}
+
+	@Benchmark
+	public int durationHourAccepted() throws BadLocationException {
+		return type(durationHour, "1", "2");
+	}
+
+	@Benchmark
+	public int durationHourRejected() throws BadLocationException {
+		durationHour.replace(0, durationHour.getLength(), "x", null);
+		return durationHour.getLength();
+	}
+
+	@Benchmark
+	public int minuteAccepted() throws BadLocationException {
+		return type(minute, "5", "9");
+	}
+
+	@Benchmark
+	public int minuteRejected() throws BadLocationException {
+		minute.replace(0, minute.getLength(), "x", null);
+		return minute.getLength();
+	}
+
+	@Benchmark
+	public int secondAccepted() throws BadLocationException {
+		return type(second, "5", "9");
+	}
+
+	@Benchmark
+	public int secondRejected() throws BadLocationException {
+		second.replace(0, second.getLength(), "x", null);
+		return second.getLength();
+	}
+
+}
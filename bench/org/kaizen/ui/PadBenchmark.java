@@ -0,0 +1,44 @@
+package org.kaizen.ui;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the cost of padding segment values
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+@State(Scope.Thread)
+public class PadBenchmark {
+
+	private int intValue = 7;
+	private long longValue = 7L;
+	private String stringValue = "7";
+
+	@Benchmark
+	public String padInt() {
+		return AbstractTimeField.pad(intValue, 2);
+	}
+
+	@Benchmark
+	public String padLong() {
+		return AbstractTimeField.pad(longValue, 3);
+	}
+
+	@Benchmark
+	public String padString() {
+		return AbstractTimeField.pad(stringValue, 2);
+	}
+
+}
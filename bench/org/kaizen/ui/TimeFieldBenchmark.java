@@ -0,0 +1,65 @@
+package org.kaizen.ui;
+
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures setting the time of a TimeField and normalising raw hour/minute
+ * values
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+@State(Scope.Thread)
+public class TimeFieldBenchmark {
+
+	private TimeField field;
+	// Alternating between dates a few hours apart changes every segment on
+	// each call, so the update path is measured rather than the unchanged
+	// value short cut
+	private Date[] dates;
+	private int next;
+	private int hour = 35;
+	private int minute = 135;
+
+	@Setup
+	public void setup() {
+		field = new TimeField();
+		long now = System.currentTimeMillis();
+		dates = new Date[]{
+			new Date(now),
+			new Date(now + 3 * TimeValueModel.MILLIS_PER_HOUR + 17 * TimeValueModel.MILLIS_PER_MINUTE),
+			new Date(now + 7 * TimeValueModel.MILLIS_PER_HOUR + 41 * TimeValueModel.MILLIS_PER_MINUTE)
+		};
+	}
+
+	@Benchmark
+	public int setTimeDate() {
+		field.setTime(dates[next]);
+		next = next == dates.length - 1 ? 0 : next + 1;
+		return field.getHourEditor().getDocument().getLength();
+	}
+
+	@Benchmark
+	public int correctHour() {
+		return field.correctHour(hour);
+	}
+
+	@Benchmark
+	public int correctMinute() {
+		return field.correctMinute(minute);
+	}
+
+}
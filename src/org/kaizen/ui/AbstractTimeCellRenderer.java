@@ -0,0 +1,285 @@
+package org.kaizen.ui;
+
+import java.awt.Color;
+import java.awt.Component;
+import java.awt.Dimension;
+import java.awt.FontMetrics;
+import java.awt.Graphics;
+import java.awt.Insets;
+import java.awt.Rectangle;
+import javax.swing.JComponent;
+import javax.swing.JTable;
+import javax.swing.UIManager;
+import javax.swing.border.Border;
+import javax.swing.border.EmptyBorder;
+import javax.swing.table.TableCellRenderer;
+
+/**
+ * Base class for table cell renderers which paint time values directly,
+ * without building a time field for each cell.
+ *
+ * The value is broken into segments which are laid out the same way as
+ * {@link AbstractTimeField#getTimeFieldsPanel()}, each segment is the width of
+ * its number of columns, right aligned and zero padded, with the separators
+ * between them. The digits are written into a reusable buffer and drawn
+ * straight to the Graphics context, so a single instance can be shared by any
+ * number of columns and painting a cell allocates nothing.
+ *
+ * Like DefaultTableCellRenderer, the validation and property change methods
+ * are overridden to do nothing, as they are never needed by a renderer.
+ */
+public abstract class AbstractTimeCellRenderer extends JComponent implements TableCellRenderer {
+
+	/**
+	 * The same left/right gap used by the time fields panel
+	 */
+	private static final Insets INSETS = new Insets(0, 2, 0, 2);
+
+	private final int[] values;
+	private final char[] buffer = new char[11];
+	private boolean hasValue;
+
+	private Color unselectedForeground;
+	private Color unselectedBackground;
+
+	// The cell borders of the look and feel, refreshed by updateUI
+	private Border noFocusBorder;
+	private Border focusBorder;
+	private Border focusSelectedBorder;
+	private Color focusForeground;
+	private Color focusBackground;
+
+	public AbstractTimeCellRenderer(int segmentCount) {
+		values = new int[segmentCount];
+		setOpaque(true);
+		setFont(UIManager.getFont("Table.font"));
+		updateUI();
+	}
+
+	/**
+	 * Picks up the focus borders and colours used by table cells, JTable
+	 * calls this for its renderers when the look and feel changes
+	 */
+	@Override
+	public void updateUI() {
+		super.updateUI();
+		focusBorder = UIManager.getBorder("Table.focusCellHighlightBorder");
+		focusSelectedBorder = UIManager.getBorder("Table.focusSelectedCellHighlightBorder");
+		if (focusSelectedBorder == null) {
+			focusSelectedBorder = focusBorder;
+		}
+		// The same space as the focus border, so the digits don't move
+		Insets insets = focusBorder != null ? focusBorder.getBorderInsets(this) : new Insets(1, 1, 1, 1);
+		noFocusBorder = new EmptyBorder(insets);
+		focusForeground = UIManager.getColor("Table.focusCellForeground");
+		focusBackground = UIManager.getColor("Table.focusCellBackground");
+	}
+
+	/**
+	 * Returns the number of segments the value is broken into
+	 *
+	 * @return
+	 */
+	protected int getSegmentCount() {
+		return values.length;
+	}
+
+	/**
+	 * Returns the number of columns used to display the segment, mirroring the
+	 * columns of the matching JTextField
+	 *
+	 * @param segment
+	 * @return
+	 */
+	protected abstract int getSegmentColumns(int segment);
+
+	/**
+	 * Returns the minimum number of digits to display for the segment, values
+	 * are padded with leading zeros
+	 *
+	 * @param segment
+	 * @return
+	 */
+	protected abstract int getSegmentPadding(int segment);
+
+	/**
+	 * Returns the separator which is displayed before the segment. This is
+	 * never called for the first segment
+	 *
+	 * @param segment
+	 * @return
+	 */
+	protected abstract char getSeparatorBefore(int segment);
+
+	/**
+	 * Returns the text displayed after the last segment, for example the time
+	 * of day, or null if there is none
+	 *
+	 * @return
+	 */
+	protected String getSuffix() {
+		return null;
+	}
+
+	/**
+	 * Returns the gap between the last segment and the suffix
+	 *
+	 * @return
+	 */
+	protected int getSuffixGap() {
+		return 4;
+	}
+
+	/**
+	 * Breaks the value down into the segment values. Implementations should
+	 * return false if the value can't be displayed, in which case the cell is
+	 * left blank
+	 *
+	 * @param value The value to be displayed, may be null
+	 * @param segments The segment values to be filled
+	 * @return
+	 */
+	protected abstract boolean setSegmentValues(Object value, int[] segments);
+
+	/**
+	 * Sets the value to be displayed
+	 *
+	 * @param value
+	 */
+	public void setValue(Object value) {
+		hasValue = setSegmentValues(value, values);
+	}
+
+	@Override
+	public void setForeground(Color c) {
+		super.setForeground(c);
+		unselectedForeground = c;
+	}
+
+	@Override
+	public void setBackground(Color c) {
+		super.setBackground(c);
+		unselectedBackground = c;
+	}
+
+	@Override
+	public Component getTableCellRendererComponent(JTable table, Object value, boolean isSelected, boolean hasFocus, int row, int column) {
+		if (isSelected) {
+			super.setForeground(table.getSelectionForeground());
+			super.setBackground(table.getSelectionBackground());
+		} else {
+			super.setForeground(unselectedForeground != null ? unselectedForeground : table.getForeground());
+			super.setBackground(unselectedBackground != null ? unselectedBackground : table.getBackground());
+		}
+		// The same focus treatment as DefaultTableCellRenderer
+		if (hasFocus) {
+			setBorder(isSelected ? focusSelectedBorder : focusBorder);
+			if (!isSelected && table.isCellEditable(row, column)) {
+				if (focusForeground != null) {
+					super.setForeground(focusForeground);
+				}
+				if (focusBackground != null) {
+					super.setBackground(focusBackground);
+				}
+			}
+		} else {
+			setBorder(noFocusBorder);
+		}
+		setFont(table.getFont());
+		setValue(value);
+		return this;
+	}
+
+	@Override
+	public Dimension getPreferredSize() {
+		FontMetrics fm = getFontMetrics(getFont());
+		Insets border = getInsets();
+		int width = INSETS.left + INSETS.right + border.left + border.right;
+		for (int segment = 0; segment < getSegmentCount(); segment++) {
+			if (segment > 0) {
+				width += fm.charWidth(getSeparatorBefore(segment));
+			}
+			width += getSegmentColumns(segment) * fm.charWidth('m');
+		}
+		String suffix = getSuffix();
+		if (suffix != null) {
+			width += getSuffixGap() + fm.stringWidth(suffix);
+		}
+		return new Dimension(width, fm.getHeight() + INSETS.top + INSETS.bottom + border.top + border.bottom);
+	}
+
+	@Override
+	protected void paintComponent(Graphics g) {
+		if (isOpaque()) {
+			g.setColor(getBackground());
+			g.fillRect(0, 0, getWidth(), getHeight());
+		}
+		if (!hasValue) {
+			return;
+		}
+		g.setColor(getForeground());
+		g.setFont(getFont());
+		FontMetrics fm = g.getFontMetrics();
+		Insets border = getInsets();
+		int y = border.top + (getHeight() - border.top - border.bottom - fm.getHeight()) / 2 + fm.getAscent();
+		int x = border.left + INSETS.left;
+		int columnWidth = fm.charWidth('m');
+		for (int segment = 0; segment < getSegmentCount(); segment++) {
+			if (segment > 0) {
+				char separator = getSeparatorBefore(segment);
+				buffer[0] = separator;
+				g.drawChars(buffer, 0, 1, x, y);
+				x += fm.charWidth(separator);
+			}
+			int segmentWidth = getSegmentColumns(segment) * columnWidth;
+			int start = SegmentFormat.format(values[segment], getSegmentPadding(segment), buffer);
+			int length = buffer.length - start;
+			// Right align the digits within the segment
+			int textWidth = fm.charsWidth(buffer, start, length);
+			g.drawChars(buffer, start, length, x + segmentWidth - textWidth, y);
+			x += segmentWidth;
+		}
+		String suffix = getSuffix();
+		if (suffix != null) {
+			g.drawString(suffix, x + getSuffixGap(), y);
+		}
+	}
+
+	/*
+	 * The following methods are overridden as a performance measure to
+	 * prune code-paths which are often called in the case of renders but which
+	 * we know are unnecessary.
+	 */
+	@Override
+	public void invalidate() {
+	}
+
+	@Override
+	public void validate() {
+	}
+
+	@Override
+	public void revalidate() {
+	}
+
+	@Override
+	public void repaint(long tm, int x, int y, int width, int height) {
+	}
+
+	@Override
+	public void repaint(Rectangle r) {
+	}
+
+	@Override
+	public void repaint() {
+	}
+
+	@Override
+	protected void firePropertyChange(String propertyName, Object oldValue, Object newValue) {
+	}
+
+	@Override
+	public void firePropertyChange(String propertyName, boolean oldValue, boolean newValue) {
+	}
+
+}
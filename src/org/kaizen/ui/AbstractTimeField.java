@@ -1,19 +1,29 @@
 package org.kaizen.ui;
 
+import java.awt.AWTEvent;
 import java.awt.Component;
 import java.awt.Container;
+import java.awt.Dimension;
+import java.awt.EventQueue;
 import java.awt.FocusTraversalPolicy;
-import java.awt.GridBagConstraints;
-import java.awt.GridBagLayout;
+import java.awt.Graphics;
+import java.awt.Insets;
 import java.awt.KeyboardFocusManager;
-import java.awt.Toolkit;
 import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
 import java.awt.event.FocusAdapter;
 import java.awt.event.FocusEvent;
 import java.awt.event.FocusListener;
 import java.awt.event.KeyEvent;
+import java.awt.event.MouseEvent;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
 import javax.swing.AbstractAction;
 import javax.swing.Action;
 import javax.swing.ActionMap;
@@ -23,16 +33,23 @@ import javax.swing.JLabel;
 import javax.swing.JPanel;
 import javax.swing.JTextField;
 import javax.swing.KeyStroke;
-import javax.swing.UIManager;
-import javax.swing.border.CompoundBorder;
-import javax.swing.border.EmptyBorder;
+import javax.swing.SwingUtilities;
+import javax.swing.Timer;
+import javax.swing.border.Border;
+import javax.swing.event.ChangeEvent;
+import javax.swing.event.ChangeListener;
 import javax.swing.event.DocumentEvent;
 import javax.swing.event.DocumentListener;
 import javax.swing.text.AbstractDocument;
 import javax.swing.text.AttributeSet;
 import javax.swing.text.BadLocationException;
+import javax.swing.text.DefaultEditorKit;
+import javax.swing.text.Document;
 import javax.swing.text.DocumentFilter;
 import javax.swing.text.JTextComponent;
+import javax.swing.text.Segment;
+import org.kaizen.ui.SegmentValidator.SegmentType;
+import org.kaizen.ui.TimeFieldTracer.Reason;
 
 /**
  * Base class for dealing with time based manipulation.
@@ -42,359 +59,1653 @@ import javax.swing.text.JTextComponent;
  * 
  * While the component is made up of a number of fields, the intention is to
  * mimic a single field
+ *
+ * The segments are described by an array of {@link SegmentSpec}s, which the
+ * field interprets generically. A single document filter, focus handler and
+ * set of actions serve every segment of every field, finding the field and
+ * segment they are working on from the document or component they are given.
+ *
+ * A field can be created "lazy", in which case none of the text fields,
+ * filters or key bindings are created until the user first focuses or clicks
+ * on it. Until then the value is painted straight from the model, the same
+ * way the cell renderers paint it. Once the user has moved away from the field
+ * and it has been idle for the {@link #getEditorIdleTimeout() idle timeout},
+ * the editor is thrown away again.
+ *
+ * A field can also use a single component editor, a
+ * {@link SegmentedTimeEditor} which paints every segment itself, in place of
+ * the panel of text fields and labels. The segments, validation and
+ * navigation are the same, but the field costs one component instead of one
+ * per segment and separator, and there are no segment text fields.
+ *
+ * Like any Swing component, the field must be used on the EDT, with two
+ * exceptions. {@link #postValue(long)} may be called from any thread and
+ * {@link #getCommittedValue()} may be read from any thread.
  */
 public abstract class AbstractTimeField extends JPanel {
 
-	private DocumentFilter minDocumentFilter;
-	private FocusListener hourFocusHandler;
-	private FocusListener minuteFocusHandler;
-
-	private JTextField hourField;
-	private JTextField minuteField;
+	/**
+	 * The action command used when the user presses enter in one of the
+	 * segments
+	 */
+	public static final String COMMIT_ACTION_COMMAND = "commit";
+	/**
+	 * The action command used when the user completes the last segment
+	 */
+	public static final String COMPLETE_ACTION_COMMAND = "complete";
+
+	private static final String SEGMENT_INDEX_KEY = "AbstractTimeField.segmentIndex";
+	// The document property which holds the index of the segment's spec
+	private static final String SPEC_INDEX_KEY = "AbstractTimeField.specIndex";
+	// The document property which holds the field the segment belongs to
+	private static final String OWNER_KEY = "AbstractTimeField.owner";
+	private static final JComponent[] NO_SEGMENTS = new JComponent[0];
+	private static final int DEFAULT_EDITOR_IDLE_TIMEOUT = 5 * 60 * 1000;
+	private static final Insets NO_INSETS = new Insets(0, 0, 0, 0);
+	// Marks that no posted value is waiting to be applied
+	private static final long NO_POSTED_VALUE = Long.MIN_VALUE;
+	// Posted values are applied at most once per frame, at 60 frames a second
+	private static final long FRAME_NANOS = 1000000000L / 60;
+
+	// Only ever used on the EDT
+	private static AbstractTimeCellRenderer placeholderRenderer;
+
+	// The filter, handlers and actions hold no state, they find the field and
+	// segment from the document or component they are given, so a single
+	// instance serves every segment of every field
+	private static final DocumentFilter SEGMENT_DOCUMENT_FILTER = new SegmentDocumentFilter();
+	private static final FocusListener SEGMENT_FOCUS_HANDLER = new SegmentFocusHandler();
+	private static final DocumentListener SEGMENT_DOCUMENT_HANDLER = new MoveFocusForwardHandler();
+	private static final ActionListener ACTION_HANDLER = new ActionHandler();
+	private static final ActionMap SEGMENT_ACTION_MAP = createSegmentActionMap();
+	// The key bindings of the segments, by advance key, only used on the EDT
+	private static final Map<Character, InputMap> SEGMENT_INPUT_MAPS = new HashMap<>();
+
+	private SegmentSpec[] specs;
+
+	private JTextField[] fields;
 
 	private JPanel pnlFields;
+	private SegmentedTimeEditor segmentedEditor;
+	private boolean singleComponentEditor;
 
 	private List<JComponent> focusOrder;
+	private JComponent[] segments;
+	// The index of the segment which has focus, maintained by the focus handlers
+	private int focusedSegment = -1;
+
+	private TimeFieldTracer tracer = TimeFieldTracer.NONE;
+
+	private final TimeValueModel model = new TimeValueModel();
+
+	// Used to compare and read segment text without allocating a String
+	private final Segment valueBuffer = new Segment();
+	private boolean transferFocusOnCompletion = true;
+
+	// The last value which was published to the value change listeners, read
+	// by other threads through getCommittedValue
+	private volatile long publishedValue;
+	// The latest value posted from another thread, waiting for the EDT
+	private final AtomicLong postedValue = new AtomicLong(NO_POSTED_VALUE);
+	private final PostedValueHandler postedValueHandler = new PostedValueHandler();
+	private boolean valueChangePending;
+	private Runnable valueChangeDispatcher;
+
+	private final boolean lazy;
+	private boolean editorCreated;
+	private int editorIdleTimeout = DEFAULT_EDITOR_IDLE_TIMEOUT;
+	private Timer editorIdleTimer;
+	// Set while a whole value is applied to the segments
+	private boolean applyingValue;
+	// Set while the field is ticked by the shared ticker
+	private boolean live;
 
 	public AbstractTimeField() {
+		this(false);
+	}
+
+	/**
+	 * Creates a new field
+	 *
+	 * @param lazy If true, the editor is not created until the user first
+	 * focuses or clicks on the field
+	 */
+	protected AbstractTimeField(boolean lazy) {
+		this(lazy, false);
+	}
+
+	/**
+	 * Creates a new field
+	 *
+	 * @param lazy If true, the editor is not created until the user first
+	 * focuses or clicks on the field
+	 * @param singleComponentEditor If true, the segments are edited by a
+	 * single {@link SegmentedTimeEditor} rather than a text field each
+	 */
+	protected AbstractTimeField(boolean lazy, boolean singleComponentEditor) {
+
+		this.lazy = lazy;
+		this.singleComponentEditor = singleComponentEditor;
+		if (lazy) {
+			// The placeholder needs to be able to take focus in order to create
+			// the editor
+			setFocusable(true);
+			enableEvents(AWTEvent.FOCUS_EVENT_MASK | AWTEvent.MOUSE_EVENT_MASK);
+		} else {
+			initUI();
+			installKeyBindings();
+			editorCreated = true;
+		}
+
+		setFocusTraversalPolicyProvider(editorCreated);
+		setFocusTraversalPolicy(TimeFocusTraversalPolicy.getSharedInstance());
+
+		publishedValue = getModel().getMillis();
+		getModel().addChangeListener(new ModelHandler());
+
+	}
+
+	/**
+	 * Returns true if the editor is created on demand
+	 *
+	 * @return
+	 */
+	public boolean isLazy() {
+		return lazy;
+	}
+
+	/**
+	 * Returns true if the text fields which make up the editor currently exist
+	 *
+	 * @return
+	 */
+	public boolean isEditorCreated() {
+		return editorCreated;
+	}
+
+	/**
+	 * Returns true if the segments are edited by a single
+	 * {@link SegmentedTimeEditor} rather than a text field each
+	 *
+	 * @return
+	 */
+	public boolean isSingleComponentEditor() {
+		return singleComponentEditor;
+	}
+
+	/**
+	 * Sets if the segments are edited by a single {@link SegmentedTimeEditor}
+	 * rather than a text field each. The editor is rebuilt if it exists, the
+	 * value is unchanged
+	 *
+	 * @param value
+	 */
+	public void setSingleComponentEditor(boolean value) {
+		if (value != singleComponentEditor) {
+			boolean rebuild = editorCreated;
+			long millis = getModel().getMillis();
+			int nanos = getModel().getNanoOfMillisecond();
+			disposeEditor();
+			singleComponentEditor = value;
+			if (rebuild) {
+				createEditor();
+				setValue(millis, nanos);
+			}
+			firePropertyChange("singleComponentEditor", !value, value);
+		}
+	}
+
+	/**
+	 * Returns how long, in milliseconds, a lazy field keeps its editor once
+	 * focus has left the field
+	 *
+	 * @return
+	 */
+	public int getEditorIdleTimeout() {
+		return editorIdleTimeout;
+	}
+
+	/**
+	 * Sets how long, in milliseconds, a lazy field keeps its editor once focus
+	 * has left the field. A value of 0 or less keeps the editor forever
+	 *
+	 * @param value
+	 */
+	public void setEditorIdleTimeout(int value) {
+		int old = editorIdleTimeout;
+		editorIdleTimeout = value;
+		if (editorIdleTimer != null) {
+			editorIdleTimer.stop();
+		}
+		firePropertyChange("editorIdleTimeout", old, value);
+	}
 
+	/**
+	 * Builds the text fields, filters and key bindings of a lazy field and
+	 * fills them from the model
+	 */
+	protected void createEditor() {
+		if (editorCreated) {
+			return;
+		}
+		long value = getModel().getMillis();
 		initUI();
 		installKeyBindings();
+		editorCreated = true;
+		setValue(value);
+		setFocusTraversalPolicyProvider(true);
+		// The segments take focus from here on, a focusable field would be
+		// traversed to when focus moves back out of the first segment. A field
+		// which owns focus gives it up once it has passed it on
+		if (lazy && !isFocusOwner()) {
+			setFocusable(false);
+		}
+		revalidate();
+		repaint();
+	}
+
+	/**
+	 * Throws away the text fields of a lazy field, the model keeps the value
+	 * and the field goes back to painting the placeholder
+	 */
+	protected void disposeEditor() {
+		if (!editorCreated) {
+			return;
+		}
+		if (editorIdleTimer != null) {
+			editorIdleTimer.stop();
+		}
+		editorCreated = false;
+		setFocusTraversalPolicyProvider(false);
+		if (lazy) {
+			// The placeholder takes focus in order to create the editor again
+			setFocusable(true);
+		}
+		removeAll();
+		pnlFields = null;
+		segmentedEditor = null;
+		fields = null;
+		focusOrder = null;
+		segments = null;
+		focusedSegment = -1;
+		revalidate();
+		repaint();
+	}
+
+	/**
+	 * Returns true if one of the segments is the focus owner
+	 *
+	 * @return
+	 */
+	protected boolean isFocusWithin() {
+		Component owner = KeyboardFocusManager.getCurrentKeyboardFocusManager().getFocusOwner();
+		return owner != null && owner != this && SwingUtilities.isDescendingFrom(owner, this);
+	}
+
+	/**
+	 * Restarts the countdown to throwing the editor away, called when focus
+	 * leaves the field
+	 */
+	protected void restartEditorIdleTimer() {
+		if (!lazy || editorIdleTimeout <= 0) {
+			return;
+		}
+		if (editorIdleTimer == null) {
+			editorIdleTimer = new Timer(editorIdleTimeout, new ActionListener() {
+				@Override
+				public void actionPerformed(ActionEvent e) {
+					if (!isFocusWithin()) {
+						disposeEditor();
+					}
+				}
+			});
+			editorIdleTimer.setRepeats(false);
+		}
+		editorIdleTimer.setInitialDelay(editorIdleTimeout);
+		editorIdleTimer.restart();
+	}
+
+	@Override
+	public void addNotify() {
+		super.addNotify();
+		if (live) {
+			TimeFieldTicker.getSharedInstance().register(this);
+			updateValue(getLiveValue(System.currentTimeMillis()));
+		}
+	}
+
+	@Override
+	public void removeNotify() {
+		super.removeNotify();
+		// A field which isn't displayed costs the ticker nothing
+		TimeFieldTicker.getSharedInstance().unregister(this);
+		if (lazy) {
+			disposeEditor();
+		}
+	}
+
+	/**
+	 * Returns true if the value is driven by the shared once a second tick
+	 *
+	 * @return
+	 */
+	public boolean isLive() {
+		return live;
+	}
 
+	/**
+	 * Sets if the value is driven by the shared tick. While the field is
+	 * displayable it is registered with the ticker, which sets the value from
+	 * {@link #getLiveValue(long)} on every whole second. Ticks are skipped
+	 * while the user is editing the field. A field stops ticking when it is
+	 * removed from its parent and starts again when it is added back
+	 *
+	 * @param value
+	 */
+	public void setLive(boolean value) {
+		if (value != live) {
+			live = value;
+			if (live) {
+				if (isDisplayable()) {
+					TimeFieldTicker.getSharedInstance().register(this);
+				}
+				updateValue(getLiveValue(System.currentTimeMillis()));
+			} else {
+				TimeFieldTicker.getSharedInstance().unregister(this);
+			}
+			firePropertyChange("live", !value, value);
+		}
+	}
+
+	/**
+	 * Returns the value displayed by a live field at the given time. By
+	 * default the value doesn't change
+	 *
+	 * @param now The time of the tick in milliseconds since the epoch
+	 * @return
+	 */
+	protected long getLiveValue(long now) {
+		return getModel().getMillis();
+	}
+
+	/**
+	 * Called by the ticker on each whole second while the field is live
+	 *
+	 * @param now The time of the tick in milliseconds since the epoch, the
+	 * same for every field
+	 */
+	protected void liveTick(long now) {
+		if (isShowing() && !isFocusWithin()) {
+			updateValue(getLiveValue(now));
+		}
+	}
+
+	@Override
+	protected void processFocusEvent(FocusEvent e) {
+		super.processFocusEvent(e);
+		if (lazy && e.getID() == FocusEvent.FOCUS_GAINED && isDisplayable()) {
+			// Pass focus on to the first segment
+			createEditor();
+			validate();
+			JComponent[] order = getSegments();
+			if (order.length > 0) {
+				order[0].requestFocusInWindow();
+			}
+			setFocusable(false);
+		}
+	}
+
+	@Override
+	protected void processMouseEvent(MouseEvent e) {
+		super.processMouseEvent(e);
+		if (lazy && e.getID() == MouseEvent.MOUSE_PRESSED && !editorCreated && isEnabled() && isDisplayable()) {
+			createEditor();
+			validate();
+			// Focus the segment which was clicked on
+			Component target = SwingUtilities.getDeepestComponentAt(this, e.getX(), e.getY());
+			if (target instanceof SegmentedTimeEditor) {
+				SegmentedTimeEditor editor = (SegmentedTimeEditor) target;
+				editor.focusSegmentAt(SwingUtilities.convertPoint(this, e.getPoint(), editor).x);
+				return;
+			}
+			if (getSegmentIndex(target) == -1) {
+				JComponent[] order = getSegments();
+				target = order.length > 0 ? order[0] : null;
+			}
+			if (target != null) {
+				target.requestFocusInWindow();
+			}
+		}
+	}
+
+	/**
+	 * Returns the renderer used to paint the value of a lazy field before its
+	 * editor is created. The renderer is shared by all fields and only used on
+	 * the EDT
+	 *
+	 * @return
+	 */
+	protected AbstractTimeCellRenderer getPlaceholderRenderer() {
+		if (placeholderRenderer == null) {
+			placeholderRenderer = new TimeCellRenderer(true);
+			placeholderRenderer.setOpaque(false);
+		}
+		return placeholderRenderer;
+	}
+
+	/**
+	 * Returns the value painted by the placeholder
+	 *
+	 * @return
+	 */
+	protected Object getPlaceholderValue() {
+		return getModel().getMillis();
+	}
+
+	@Override
+	public Dimension getPreferredSize() {
+		if (editorCreated || isPreferredSizeSet()) {
+			return super.getPreferredSize();
+		}
+		AbstractTimeCellRenderer renderer = getPlaceholderRenderer();
+		TimeFieldStyle style = TimeFieldStyle.getInstance();
+		renderer.setFont(style.getFont());
+		renderer.setValue(getPlaceholderValue());
+		Dimension size = renderer.getPreferredSize();
+		Border border = style.getTextFieldBorder();
+		if (border != null) {
+			Insets insets = border.getBorderInsets(this);
+			size.width += insets.left + insets.right;
+			size.height += insets.top + insets.bottom;
+		}
+		Insets insets = getInsets();
+		size.width += insets.left + insets.right;
+		size.height += insets.top + insets.bottom;
+		return size;
+	}
+
+	@Override
+	public Dimension getMinimumSize() {
+		if (editorCreated || isMinimumSizeSet()) {
+			return super.getMinimumSize();
+		}
+		return getPreferredSize();
+	}
+
+	@Override
+	protected void paintComponent(Graphics g) {
+		super.paintComponent(g);
+		if (!editorCreated) {
+			paintPlaceholder(g);
+		}
+	}
+
+	/**
+	 * Paints the value of the model, laid out the same way as the editor,
+	 * centered within the field
+	 *
+	 * @param g
+	 */
+	protected void paintPlaceholder(Graphics g) {
+		Dimension size = getPreferredSize();
+		Insets insets = getInsets();
+		size.width -= insets.left + insets.right;
+		size.height -= insets.top + insets.bottom;
+		int x = insets.left + (getWidth() - insets.left - insets.right - size.width) / 2;
+		int y = insets.top + (getHeight() - insets.top - insets.bottom - size.height) / 2;
+
+		TimeFieldStyle style = TimeFieldStyle.getInstance();
+		g.setColor(style.getBackground());
+		g.fillRect(x, y, size.width, size.height);
+		Border border = style.getTextFieldBorder();
+		Insets borderInsets = NO_INSETS;
+		if (border != null) {
+			border.paintBorder(this, g, x, y, size.width, size.height);
+			borderInsets = border.getBorderInsets(this);
+		}
+
+		int width = size.width - borderInsets.left - borderInsets.right;
+		int height = size.height - borderInsets.top - borderInsets.bottom;
+		AbstractTimeCellRenderer renderer = getPlaceholderRenderer();
+		renderer.setFont(style.getFont());
+		renderer.setForeground(style.getForeground());
+		renderer.setValue(getPlaceholderValue());
+		renderer.setBounds(0, 0, width, height);
+		Graphics cg = g.create(x + borderInsets.left, y + borderInsets.top, width, height);
+		try {
+			renderer.paint(cg);
+		} finally {
+			cg.dispose();
+		}
 	}
 
 	protected void initUI() {
 
-		setLayout(new GridBagLayout());
-		GridBagConstraints gbc = new GridBagConstraints();
-		gbc.gridx = 0;
-		gbc.gridy = 0;
-		add(getTimeFieldsPanel(), gbc);
+		setLayout(new SegmentLayout());
+		add(singleComponentEditor ? getSegmentedEditor() : getTimeFieldsPanel());
+
+	}
+
+	@Override
+	public void updateUI() {
+		super.updateUI();
+		// The segments are measured with the fonts and insets of the look and
+		// feel, this is called from the JPanel constructor before the editor
+		// exists
+		invalidateSegmentLayout(this);
+		invalidateSegmentLayout(pnlFields);
+		if (pnlFields != null) {
+			installStyle(pnlFields);
+		}
+	}
+
+	/**
+	 * Gives the panel of segments the border and background of a text field,
+	 * the instances are shared by every field
+	 *
+	 * @param panel
+	 */
+	protected void installStyle(JPanel panel) {
+		TimeFieldStyle style = TimeFieldStyle.getInstance();
+		panel.setBorder(style.getSegmentBorder());
+		panel.setBackground(style.getBackground());
+	}
+
+	private static void invalidateSegmentLayout(Container container) {
+		if (container != null && container.getLayout() instanceof SegmentLayout) {
+			((SegmentLayout) container.getLayout()).invalidateCache();
+		}
+	}
+
+	/**
+	 * Binds the navigation keys of every segment. The bindings and actions are
+	 * shared by all fields, each segment only points at them
+	 */
+	protected void installKeyBindings() {
+
+		if (singleComponentEditor) {
+			// The editor has bindings of its own
+			return;
+		}
+		SegmentSpec[] specs = getSegmentSpecs();
+		for (int index = 0; index < specs.length; index++) {
+			JTextField field = getSegmentField(index);
+			field.setInputMap(JComponent.WHEN_FOCUSED,
+							new SegmentInputMap(getSegmentInputMap(specs[index].getAdvanceKey()), field.getInputMap(JComponent.WHEN_FOCUSED)));
+			field.setActionMap(new SegmentActionMap(SEGMENT_ACTION_MAP, field.getActionMap()));
+		}
+
+	}
+
+	/**
+	 * Returns the bindings shared by every segment with the given advance key.
+	 * The maps are created once and only used on the EDT
+	 *
+	 * @param advanceKey
+	 * @return
+	 */
+	private static InputMap getSegmentInputMap(char advanceKey) {
+		InputMap map = SEGMENT_INPUT_MAPS.get(advanceKey);
+		if (map == null) {
+			map = new InputMap();
+			map.put(KeyStroke.getKeyStroke(KeyEvent.VK_RIGHT, 0), "afterSegmentArrow");
+			map.put(KeyStroke.getKeyStroke(KeyEvent.VK_NUMPAD6, 0), "afterSegmentKeyPad");
+			map.put(KeyStroke.getKeyStroke(KeyEvent.VK_LEFT, 0), "beforeSegmentArrow");
+			map.put(KeyStroke.getKeyStroke(KeyEvent.VK_NUMPAD4, 0), "beforeSegmentKeyPad");
+			if (advanceKey != SegmentSpec.NONE) {
+				map.put(KeyStroke.getKeyStroke(advanceKey), "toNextSegment");
+			}
+			SEGMENT_INPUT_MAPS.put(advanceKey, map);
+		}
+		return map;
+	}
+
+	private static ActionMap createSegmentActionMap() {
+		ActionMap map = new ActionMap();
+		map.put("toNextSegment", new MoveFocusForward());
+		map.put("afterSegmentArrow", new MoveFieldFocusForward(true));
+		map.put("afterSegmentKeyPad", new MoveFieldFocusForward(false));
+		map.put("beforeSegmentArrow", new MoveFieldFocusBackward(true));
+		map.put("beforeSegmentKeyPad", new MoveFieldFocusBackward(false));
+		return map;
+	}
+
+	/**
+	 * Returns the field a document belongs to, or null if it's not the
+	 * document of a segment
+	 *
+	 * @param document
+	 * @return
+	 */
+	protected static AbstractTimeField getOwner(Document document) {
+		Object owner = document.getProperty(OWNER_KEY);
+		return owner instanceof AbstractTimeField ? (AbstractTimeField) owner : null;
+	}
+
+	/**
+	 * Returns the field a segment, or the source of an event on a segment,
+	 * belongs to, or null if it's not part of a field
+	 *
+	 * @param source
+	 * @return
+	 */
+	protected static AbstractTimeField getOwner(Object source) {
+		if (source instanceof JTextComponent) {
+			AbstractTimeField owner = getOwner(((JTextComponent) source).getDocument());
+			if (owner != null) {
+				return owner;
+			}
+		}
+		if (source instanceof Component) {
+			return (AbstractTimeField) SwingUtilities.getAncestorOfClass(AbstractTimeField.class, (Component) source);
+		}
+		return null;
+	}
+
+	/**
+	 * Performs one of the text component's own actions
+	 */
+	private static void invokeAction(JTextComponent field, String name, ActionEvent e) {
+		Action action = field.getActionMap().get(name);
+		if (action != null && action.isEnabled()) {
+			action.actionPerformed(e);
+		}
+	}
+
+	protected JPanel getTimeFieldsPanel() {
+
+		if (pnlFields == null) {
+
+			pnlFields = new JPanel(new SegmentLayout());
+			installStyle(pnlFields);
+			for (JComponent field : getTimeFields()) {
+				field.setBorder(null);
+				pnlFields.add(field);
+			}
+
+		}
+
+		return pnlFields;
+
+	}
+
+	/**
+	 * Returns the single component editor, creating it if required. Only used
+	 * when the field {@link #isSingleComponentEditor() uses one}
+	 *
+	 * @return
+	 */
+	protected SegmentedTimeEditor getSegmentedEditor() {
+		if (segmentedEditor == null) {
+			segmentedEditor = new SegmentedTimeEditor(this);
+		}
+		return segmentedEditor;
+	}
+
+	/**
+	 * Returns the components which make up the editor, the text field of each
+	 * segment preceded by a label holding its separator
+	 *
+	 * @return
+	 */
+	protected JComponent[] getTimeFields() {
+		SegmentSpec[] specs = getSegmentSpecs();
+		List<JComponent> components = new ArrayList<>(specs.length * 2);
+		for (int index = 0; index < specs.length; index++) {
+			char separator = specs[index].getSeparator();
+			if (index > 0 && separator != SegmentSpec.NONE) {
+				components.add(new JLabel(String.valueOf(separator)));
+			}
+			components.add(getSegmentField(index));
+		}
+		return components.toArray(new JComponent[components.size()]);
+	}
+
+	protected List<JComponent> initFocusTransveralOrder() {
+		if (singleComponentEditor) {
+			List<JComponent> focusOrder = new ArrayList<>(1);
+			focusOrder.add(getSegmentedEditor());
+			return focusOrder;
+		}
+		int count = getSegmentSpecs().length;
+		List<JComponent> focusOrder = new ArrayList<>(count + 1);
+		for (int index = 0; index < count; index++) {
+			focusOrder.add(getSegmentField(index));
+		}
+		return focusOrder;
+	}
+
+	protected List<JComponent> getFocusTraversalOrder() {
+		if (focusOrder == null) {
+			focusOrder = initFocusTransveralOrder();
+		}
+		return focusOrder;
+	}
+
+	/**
+	 * Returns the segments in focus traversal order. Each segment is tagged with
+	 * its index, so finding a neighbour is a simple array step
+	 *
+	 * @return
+	 */
+	protected JComponent[] getSegments() {
+		if (segments == null) {
+			List<JComponent> order = getFocusTraversalOrder();
+			segments = order.toArray(new JComponent[order.size()]);
+			for (int index = 0; index < segments.length; index++) {
+				segments[index].putClientProperty(SEGMENT_INDEX_KEY, index);
+			}
+		}
+		return segments;
+	}
+
+	/**
+	 * Returns the index of the segment within the focus traversal order, or -1
+	 * if the component is not a segment of this field
+	 *
+	 * @param component
+	 * @return
+	 */
+	protected int getSegmentIndex(Component component) {
+		if (component instanceof JComponent) {
+			JComponent[] order = getSegments();
+			Object value = ((JComponent) component).getClientProperty(SEGMENT_INDEX_KEY);
+			if (value instanceof Integer) {
+				int index = (Integer) value;
+				if (index < order.length && order[index] == component) {
+					return index;
+				}
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Returns the specs of the segments which make up the field, from the
+	 * most to the least significant. The array is owned by the field and must
+	 * not be modified
+	 *
+	 * @return
+	 */
+	protected SegmentSpec[] getSegmentSpecs() {
+		if (specs == null) {
+			specs = createSegmentSpecs();
+		}
+		return specs;
+	}
+
+	/**
+	 * Returns the specs the field starts out with. This is called from the
+	 * constructor, so it can't depend on the state of sub classes
+	 *
+	 * @return
+	 */
+	protected abstract SegmentSpec[] createSegmentSpecs();
+
+	/**
+	 * Replaces the segments of the field. The editor is rebuilt if it exists
+	 * and the value is truncated to the new resolution
+	 *
+	 * @param value
+	 */
+	protected void setSegmentSpecs(SegmentSpec[] value) {
+		if (value.length == 0) {
+			throw new IllegalArgumentException("A field needs at least one segment");
+		}
+		long millis = getModel().getMillis();
+		int nanos = getModel().getNanoOfMillisecond();
+		boolean rebuild = editorCreated;
+		disposeEditor();
+		specs = value.clone();
+		if (rebuild) {
+			createEditor();
+		}
+		setValue(millis, nanos);
+	}
+
+	protected SegmentSpec getSegmentSpec(int index) {
+		return getSegmentSpecs()[index];
+	}
+
+	/**
+	 * Returns the index of the first segment of the given type, or -1 if the
+	 * field has no such segment
+	 *
+	 * @param type
+	 * @return
+	 */
+	protected int getSpecIndex(SegmentType type) {
+		SegmentSpec[] specs = getSegmentSpecs();
+		for (int index = 0; index < specs.length; index++) {
+			if (specs[index].getType() == type) {
+				return index;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Returns the index of the spec of the segment which owns the document
+	 *
+	 * @param document
+	 * @return
+	 */
+	protected int getSpecIndex(Document document) {
+		Object value = document.getProperty(SPEC_INDEX_KEY);
+		return value instanceof Integer ? (Integer) value : -1;
+	}
+
+	/**
+	 * Returns the largest number of digits which can be entered into the
+	 * segment, or -1 if it's unconstrained
+	 *
+	 * @param index
+	 * @return
+	 */
+	protected int getMaximumDigits(int index) {
+		return getSegmentSpec(index).getWidth();
+	}
 
+	/**
+	 * Returns the number of digits a value of the segment is padded to, which
+	 * is never more than it can hold
+	 *
+	 * @param index
+	 * @return
+	 */
+	protected int getSegmentPadding(int index) {
+		int padding = getSegmentSpec(index).getPadding();
+		int maximum = getMaximumDigits(index);
+		return maximum > 0 ? Math.min(padding, maximum) : padding;
+	}
+
+	/**
+	 * Creates the text field of a segment, the shared filter and handlers
+	 * identify the segment by a property of its document
+	 *
+	 * @param index
+	 * @return
+	 */
+	protected JTextField createSegmentField(int index) {
+		JTextField field = new JTextField(getSegmentSpec(index).getColumns());
+		Document document = field.getDocument();
+		document.putProperty(SPEC_INDEX_KEY, index);
+		document.putProperty(OWNER_KEY, this);
+		((AbstractDocument) document).setDocumentFilter(getSegmentDocumentFilter());
+		document.addDocumentListener(getSegmentDocumentHandler());
+		field.addFocusListener(getSegmentFocusHandler());
+		field.setHorizontalAlignment(JTextField.RIGHT);
+		field.addActionListener(getActionHandler());
+		return field;
+	}
+
+	/**
+	 * Returns the text field of the segment, creating it if required. A field
+	 * using a single component editor has no text fields and returns null
+	 *
+	 * @param index
+	 * @return
+	 */
+	protected JTextField getSegmentField(int index) {
+		if (singleComponentEditor) {
+			return null;
+		}
+		if (fields == null) {
+			fields = new JTextField[getSegmentSpecs().length];
+		}
+		if (fields[index] == null) {
+			fields[index] = createSegmentField(index);
+		}
+		return fields[index];
+	}
+
+	/**
+	 * Returns the text field of the first segment of the given type, or null
+	 * if the field has no such segment
+	 *
+	 * @param type
+	 * @return
+	 */
+	protected JTextField getSegmentField(SegmentType type) {
+		int index = getSpecIndex(type);
+		return index == -1 ? null : getSegmentField(index);
+	}
+
+	/**
+	 * Returns the hour segment, for durations this may be the unconstrained
+	 * leading segment
+	 *
+	 * @return
+	 */
+	public JTextField getHourField() {
+		JTextField field = getSegmentField(SegmentType.HOUR);
+		return field != null ? field : getSegmentField(SegmentType.DURATION_HOUR);
+	}
+
+	/**
+	 * Returns the model which holds the committed value of the field. The
+	 * model is updated as each edit is accepted
+	 *
+	 * @return
+	 */
+	public TimeValueModel getModel() {
+		return model;
+	}
+
+	/**
+	 * Returns the value of the field in milliseconds
+	 *
+	 * @return
+	 */
+	public long getValue() {
+		return getModel().getMillis();
+	}
+
+	/**
+	 * Sets the value of the field from a number of milliseconds. Any part of
+	 * the value which the field can't display is discarded. The model is
+	 * updated in a single step and the segments are then brought into line
+	 *
+	 * @param millis
+	 */
+	public void setValue(long millis) {
+		setValue(millis, 0);
+	}
+
+	/**
+	 * Sets the value of the field from a number of milliseconds and the
+	 * nanoseconds within the last millisecond, any part of the value which the
+	 * field can't display is discarded
+	 *
+	 * @param millis
+	 * @param nanoOfMillisecond
+	 */
+	public void setValue(long millis, int nanoOfMillisecond) {
+		millis -= millis % getResolution();
+		SegmentSpec[] specs = getSegmentSpecs();
+		long weight = specs[specs.length - 1].getWeight();
+		nanoOfMillisecond = weight < SegmentSpec.NANOS_PER_MILLI
+						? nanoOfMillisecond - (int) (nanoOfMillisecond % weight) : 0;
+		getModel().setValue(millis, nanoOfMillisecond);
+		updateSegments();
+	}
+
+	/**
+	 * Sets the value of the field, only the segments whose value has changed
+	 * are updated. Used for values which change often, such as live fields,
+	 * unlike {@link #setValue(long)} partially entered segments are not
+	 * padded out
+	 *
+	 * @param millis
+	 */
+	protected void updateValue(long millis) {
+		millis -= millis % getResolution();
+		TimeValueModel model = getModel();
+		long oldMillis = model.getMillis();
+		int oldNanos = model.getNanoOfMillisecond();
+		if (millis == oldMillis && oldNanos == 0) {
+			return;
+		}
+		model.setValue(millis, 0);
+		if (!editorCreated) {
+			repaint();
+			return;
+		}
+		SegmentSpec[] specs = getSegmentSpecs();
+		for (int index = 0; index < specs.length; index++) {
+			if (specs[index].valueOf(oldMillis, oldNanos) != specs[index].valueOf(millis, 0)) {
+				setSegmentValue(index, getSegmentValue(index));
+			}
+		}
+	}
+
+	/**
+	 * Sets the value of the field from any thread. Only the latest value is
+	 * kept, the field is brought up to date on the EDT at most once per frame
+	 * and any values posted in between are dropped. Posting a value while one
+	 * is already waiting costs a single atomic exchange and never touches the
+	 * event queue.
+	 *
+	 * The value replaces whatever the user is editing, in the same way as
+	 * {@link #setValue(long)}. It is checked by {@link #checkPostedValue(long)}
+	 * before it is posted, so a value which setValue would reject throws on
+	 * the calling thread rather than later on the EDT
+	 *
+	 * @param millis
+	 * @throws IllegalArgumentException if the value is Long.MIN_VALUE, which
+	 * is reserved, or the field rejects it
+	 */
+	public void postValue(long millis) {
+		if (millis == NO_POSTED_VALUE) {
+			throw new IllegalArgumentException("Long.MIN_VALUE is reserved and can not be posted");
+		}
+		checkPostedValue(millis);
+		if (postedValue.getAndSet(millis) == NO_POSTED_VALUE) {
+			EventQueue.invokeLater(postedValueHandler);
+		}
+	}
+
+	/**
+	 * Checks a value passed to {@link #postValue(long)} on the posting thread,
+	 * throwing whatever {@link #setValue(long)} would. It may be called from
+	 * any thread, so it may only read state which is safe to read from any
+	 * thread. By default negative values are rejected
+	 *
+	 * @param millis
+	 * @throws IllegalArgumentException if the value is negative
+	 */
+	protected void checkPostedValue(long millis) {
+		if (millis < 0) {
+			throw new IllegalArgumentException("Time values can not be negative: " + millis);
+		}
+	}
+
+	/**
+	 * Returns the last complete value published to the value change
+	 * listeners. Unlike {@link #getValue()}, this may be called from any
+	 * thread, it never blocks and does not touch the editor. Values set on
+	 * the EDT are committed at the end of the EDT cycle in which they are set
+	 *
+	 * @return
+	 */
+	public long getCommittedValue() {
+		return publishedValue;
+	}
+
+	/**
+	 * Returns the smallest unit, in milliseconds, displayed by the field, that
+	 * is the weight of the last segment. Fields which display fractions of a
+	 * millisecond return 1
+	 *
+	 * @return
+	 */
+	protected long getResolution() {
+		SegmentSpec[] specs = getSegmentSpecs();
+		return Math.max(1, specs[specs.length - 1].getWeight() / SegmentSpec.NANOS_PER_MILLI);
+	}
+
+	/**
+	 * Sets the segments to display the value of the model
+	 */
+	protected void updateSegments() {
+		if (!editorCreated) {
+			return;
+		}
+		for (int index = 0; index < getSegmentSpecs().length; index++) {
+			setSegmentValue(index, getSegmentValue(index));
+		}
+	}
+
+	/**
+	 * Returns the value of a segment, taken from the model
+	 *
+	 * @param index
+	 * @return
+	 */
+	protected int getSegmentValue(int index) {
+		return getSegmentSpec(index).valueOf(getModel().getMillis(), getModel().getNanoOfMillisecond());
+	}
+
+	public int getHour() {
+		return getModel().getHour();
+	}
+
+	public int getMinute() {
+		return getModel().getMinute();
+	}
+
+	public void setHour(int hour) {
+		setSegmentValue(SegmentType.HOUR, hour);
+	}
+
+	public void setMinute(int minute) {
+		setSegmentValue(SegmentType.MINUTE, minute);
+	}
+
+	/**
+	 * Parses a whole value which has been pasted into one of the segments
+	 *
+	 * @param text
+	 * @return The value in milliseconds, truncated to what the field can
+	 * display, or one of the TimeParser error codes
+	 */
+	protected long parseWholeValue(CharSequence text) {
+		long millis = TimeParser.parseTimeOfDay(text);
+		if (TimeParser.isError(millis)) {
+			return millis;
+		}
+		return millis - millis % getResolution();
+	}
+
+	/**
+	 * Applies a whole value to every segment, without moving the focus
+	 *
+	 * @param millis
+	 */
+	protected void applyWholeValue(long millis) {
+		applyingValue = true;
+		try {
+			setValue(millis);
+		} finally {
+			applyingValue = false;
+		}
 	}
 
-	protected void installKeyBindings() {
-
-		JTextField hourField = getHourField();
-		installKeyBinding(
-						hourField,
-						JComponent.WHEN_FOCUSED,
-						KeyStroke.getKeyStroke(KeyEvent.VK_SEMICOLON, KeyEvent.SHIFT_DOWN_MASK),
-						"toMinuteField",
-						new MoveFocusForward());
-		installKeyBinding(
-						hourField,
-						JComponent.WHEN_FOCUSED,
-						KeyStroke.getKeyStroke(KeyEvent.VK_RIGHT, 0),
-						"afterHourArrow",
-						new MoveFieldFocusForward(hourField, true));
-		installKeyBinding(
-						hourField,
-						JComponent.WHEN_FOCUSED,
-						KeyStroke.getKeyStroke(KeyEvent.VK_NUMPAD6, 0),
-						"afterHourKeyPad",
-						new MoveFieldFocusForward(hourField, false));
-
-		JTextField minuteField = getMinuteField();
-		installKeyBinding(
-						minuteField,
-						JComponent.WHEN_FOCUSED,
-						KeyStroke.getKeyStroke(KeyEvent.VK_LEFT, 0),
-						"beforeMinuteArrow",
-						new MoveFieldFocusBackward(minuteField, true));
-		installKeyBinding(
-						minuteField,
-						JComponent.WHEN_FOCUSED,
-						KeyStroke.getKeyStroke(KeyEvent.VK_NUMPAD4, 0),
-						"beforeMinuteKeyPad",
-						new MoveFieldFocusBackward(minuteField, false));
-
+	/**
+	 * Sets the value of the first segment of the given type, ignored if the
+	 * field has no such segment
+	 *
+	 * @param type
+	 * @param value
+	 */
+	protected void setSegmentValue(SegmentType type, int value) {
+		int index = getSpecIndex(type);
+		if (index != -1) {
+			setSegmentValue(index, value);
+		}
 	}
 
-	protected JPanel getTimeFieldsPanel() {
+	/**
+	 * Sets the value of a segment. If the editor has not been created, the
+	 * value goes straight to the model, values which the segment's filter
+	 * would reject are ignored
+	 *
+	 * @param index
+	 * @param value
+	 */
+	protected void setSegmentValue(int index, int value) {
+		if (editorCreated && singleComponentEditor) {
+			getSegmentedEditor().setSegmentValue(index, value);
+		} else if (editorCreated) {
+			setFieldValue(getSegmentField(index), value, getSegmentPadding(index));
+		} else if (getSegmentSpec(index).accepts(value)) {
+			updateModel(index, value);
+		}
+	}
 
-		if (pnlFields == null) {
+	protected void setFieldValue(JTextComponent field, int value, int padding) {
+		String text = pad(value, padding);
+		// Don't generate document events if nothing has changed
+		if (!SegmentFormat.contentEquals(field.getDocument(), text, valueBuffer)) {
+			field.setText(text);
+		}
+	}
 
-			pnlFields = new JPanel(new GridBagLayout());
-			pnlFields.setBorder(new CompoundBorder(UIManager.getBorder("TextField.border"), new EmptyBorder(0, 2, 0, 2)));
-			pnlFields.setBackground(UIManager.getColor("TextField.background"));
-			GridBagConstraints gbc = new GridBagConstraints();
-			gbc.gridx = 0;
-			gbc.gridy = 0;
-			for (JComponent field : getTimeFields()) {
-				field.setBorder(null);
-				pnlFields.add(field, gbc);
-				gbc.gridx++;
-			}
+	/**
+	 * Called by the document filters once an edit has been applied to a
+	 * segment, updates the model with the new value of the segment
+	 *
+	 * @param index The index of the segment which was edited
+	 * @param document The document of the segment
+	 * @param buffer Used to read the document without allocating a String
+	 * @throws BadLocationException
+	 */
+	protected void updateModel(int index, Document document, Segment buffer) throws BadLocationException {
+		updateModel(index, SegmentValidator.valueOf(document, buffer));
+	}
 
+	/**
+	 * Updates the model with the new value of a segment, the rest of the
+	 * value is left as it is
+	 *
+	 * @param index
+	 * @param value
+	 */
+	protected void updateModel(int index, int value) {
+		SegmentSpec spec = getSegmentSpec(index);
+		TimeValueModel model = getModel();
+		long millis = model.getMillis();
+		int nanos = model.getNanoOfMillisecond();
+		long delta = value - (long) getSegmentValue(index);
+		if (spec.isFractional()) {
+			long nanoOfSecond = millis % TimeValueModel.MILLIS_PER_SECOND * SegmentSpec.NANOS_PER_MILLI + nanos
+							+ delta * spec.getWeight();
+			millis += nanoOfSecond / SegmentSpec.NANOS_PER_MILLI - millis % TimeValueModel.MILLIS_PER_SECOND;
+			nanos = (int) (nanoOfSecond % SegmentSpec.NANOS_PER_MILLI);
+		} else {
+			millis += delta * (spec.getWeight() / SegmentSpec.NANOS_PER_MILLI);
 		}
+		model.setValue(millis, nanos);
+	}
 
-		return pnlFields;
-
+	public JTextField getMinuteField() {
+		return getSegmentField(SegmentType.MINUTE);
 	}
 
-	protected JComponent[] getTimeFields() {
-		return new JComponent[]{
-			getHourField(),
-			new JLabel(":"),
-			getMinuteField()
-		};
+	/**
+	 * Adds an action listener to the component. Actions are fired when the user
+	 * presses the enter key ({@link #COMMIT_ACTION_COMMAND}) or completes the
+	 * last segment ({@link #COMPLETE_ACTION_COMMAND})
+	 *
+	 * @param listener
+	 */
+	public void addActionListener(ActionListener listener) {
+		listenerList.add(ActionListener.class, listener);
 	}
 
-	protected List<JComponent> initFocusTransveralOrder() {
-		List<JComponent> focusOrder = new ArrayList<>(3);
-		focusOrder.add(getHourField());
-		focusOrder.add(getMinuteField());
-		return focusOrder;
+	public void removeActionListener(ActionListener listener) {
+		listenerList.remove(ActionListener.class, listener);
 	}
 
-	protected List<JComponent> getFocusTraversalOrder() {
-		if (focusOrder == null) {
-			focusOrder = initFocusTransveralOrder();
+	/**
+	 * Fires the action performed event to all registered listeners
+	 *
+	 * @param evt
+	 */
+	protected void fireActionPerformed(ActionEvent evt) {
+		Object[] listeners = listenerList.getListenerList();
+		for (int index = listeners.length - 2; index >= 0; index -= 2) {
+			if (listeners[index] == ActionListener.class) {
+				((ActionListener) listeners[index + 1]).actionPerformed(evt);
+			}
 		}
-		return focusOrder;
 	}
 
-	protected int getHourFocusForwardLength() {
-		return 2;
+	/**
+	 * Adds a listener which is notified when the committed value of the field
+	 * changes. Changes are only published when every segment holds a complete
+	 * value and bursts of changes are coalesced into a single event
+	 *
+	 * @param listener
+	 */
+	public void addValueChangeListener(ValueChangeListener listener) {
+		listenerList.add(ValueChangeListener.class, listener);
 	}
 
-	protected int getMinuteFocusForwardLength() {
-		return 2;
+	public void removeValueChangeListener(ValueChangeListener listener) {
+		listenerList.remove(ValueChangeListener.class, listener);
 	}
 
-	protected JTextField createHourField() {
-		JTextField hourField = new JTextField(2);
-		((AbstractDocument) hourField.getDocument()).setDocumentFilter(getHourDocumentFilter());
-		hourField.addFocusListener(getHourFocusHandler());
-		hourField.setHorizontalAlignment(JTextField.RIGHT);
-		hourField.getDocument().addDocumentListener(new MoveFocusForwardHandler(hourField, getHourFocusForwardLength()));
-		return hourField;
+	/**
+	 * Notifies the value change listeners. The event is only created if there
+	 * is someone listening
+	 *
+	 * @param oldValue
+	 * @param newValue
+	 */
+	protected void fireValueChanged(long oldValue, long newValue) {
+		Object[] listeners = listenerList.getListenerList();
+		ValueChangeEvent evt = null;
+		for (int index = listeners.length - 2; index >= 0; index -= 2) {
+			if (listeners[index] == ValueChangeListener.class) {
+				if (evt == null) {
+					evt = new ValueChangeEvent(this, oldValue, newValue);
+				}
+				((ValueChangeListener) listeners[index + 1]).valueChanged(evt);
+			}
+		}
 	}
 
-	public JTextField getHourField() {
-		if (hourField == null) {
-			hourField = createHourField();
+	/**
+	 * Returns true if every segment holds a complete value, that is, the fixed
+	 * width segments are full and the variable width segments are not empty
+	 *
+	 * @return
+	 */
+	public boolean isEditValid() {
+		if (!editorCreated) {
+			// The model can only be set with complete values
+			return true;
+		}
+		if (singleComponentEditor) {
+			return getSegmentedEditor().isEditValid();
+		}
+		SegmentSpec[] specs = getSegmentSpecs();
+		for (int index = 0; index < specs.length; index++) {
+			int length = getSegmentField(index).getDocument().getLength();
+			int width = specs[index].getWidth();
+			if (length == 0 || (width > 0 && length < width)) {
+				return false;
+			}
 		}
-		return hourField;
+		return true;
 	}
 
-	protected JTextField createMinuteField() {
-		JTextField minuteField = new JTextField(2);
-		((AbstractDocument) minuteField.getDocument()).setDocumentFilter(getMinuteDocumentFilter());
-		minuteField.addFocusListener(getMinuteFocusHandler());
-		minuteField.setHorizontalAlignment(JTextField.RIGHT);
-		minuteField.getDocument().addDocumentListener(new MoveFocusForwardHandler(hourField, getMinuteFocusForwardLength()));
-		return minuteField;
+	/**
+	 * Schedules the value change listeners to be notified at the end of the
+	 * current EDT cycle, unless a notification is already pending
+	 */
+	protected void scheduleValueChange() {
+		if (valueChangePending) {
+			return;
+		}
+		valueChangePending = true;
+		if (valueChangeDispatcher == null) {
+			valueChangeDispatcher = new Runnable() {
+				@Override
+				public void run() {
+					valueChangePending = false;
+					publishValueChange();
+				}
+			};
+		}
+		EventQueue.invokeLater(valueChangeDispatcher);
 	}
 
-	public int getHour() throws NumberFormatException {
-		return getFieldValue(getHourField());
+	/**
+	 * Publishes the current value of the model, if it is valid and differs from
+	 * the value last published
+	 */
+	protected void publishValueChange() {
+		long value = getModel().getMillis();
+		if (value != publishedValue && isEditValid()) {
+			long old = publishedValue;
+			publishedValue = value;
+			fireValueChanged(old, value);
+		}
 	}
 
-	public int getMinute() throws NumberFormatException {
-		return getFieldValue(getMinuteField());
+	/**
+	 * Returns the internal action handler. This handler monitors the enter key
+	 * on the individual segments and merges them into one.
+	 *
+	 * @return
+	 */
+	protected ActionListener getActionHandler() {
+		return ACTION_HANDLER;
 	}
 
-	protected int getFieldValue(JTextComponent field) throws NumberFormatException {
-		return Integer.parseInt(field.getText());
+	/**
+	 * Returns if focus is transferred out of the field when the user completes
+	 * the last segment
+	 *
+	 * @return
+	 */
+	public boolean isTransferFocusOnCompletion() {
+		return transferFocusOnCompletion;
 	}
 
-	public void setHour(int hour) {
-		setFieldValue(getHourField(), hour, 2);
+	/**
+	 * Sets if focus is transferred out of the field when the user completes
+	 * the last segment. Editors which handle the {@link #COMPLETE_ACTION_COMMAND}
+	 * themselves will want to turn this off
+	 *
+	 * @param value
+	 */
+	public void setTransferFocusOnCompletion(boolean value) {
+		if (value != transferFocusOnCompletion) {
+			transferFocusOnCompletion = value;
+			firePropertyChange("transferFocusOnCompletion", !value, value);
+		}
 	}
 
-	public void setMinute(int minute) {
-		setFieldValue(getMinuteField(), minute, 2);
+	/**
+	 * Called when the user moves forward past the last segment
+	 */
+	protected void lastFieldCompleted() {
+		fireActionPerformed(new ActionEvent(this, ActionEvent.ACTION_PERFORMED, COMPLETE_ACTION_COMMAND));
+		if (isTransferFocusOnCompletion()) {
+			transferFocus();
+		}
 	}
 
-	protected void setFieldValue(JTextComponent field, int value, int padding) {
-		String text = pad(value, padding);
-		field.setText(text);
+	/**
+	 * Returns the tracer which is notified of the decisions made by the
+	 * document filters
+	 *
+	 * @return
+	 */
+	public TimeFieldTracer getTracer() {
+		return tracer;
 	}
 
-	public JTextField getMinuteField() {
-		if (minuteField == null) {
-			minuteField = createMinuteField();
-		}
-		return minuteField;
+	/**
+	 * Sets the tracer which is notified of the decisions made by the document
+	 * filters. Passing null will disable tracing
+	 *
+	 * @param value
+	 */
+	public void setTracer(TimeFieldTracer value) {
+		TimeFieldTracer old = tracer;
+		tracer = value == null ? TimeFieldTracer.NONE : value;
+		firePropertyChange("tracer", old, tracer);
 	}
 
 	/**
-	 * Returns the document filter used to filter the hour field
+	 * Returns the document filter shared by all the segments
 	 *
 	 * @return
 	 */
-	protected abstract DocumentFilter getHourDocumentFilter();
+	protected DocumentFilter getSegmentDocumentFilter() {
+		return SEGMENT_DOCUMENT_FILTER;
+	}
 
 	/**
-	 * Returns the document filter user to filter the minute field
+	 * Returns the focus listener shared by all the segments
 	 *
 	 * @return
 	 */
-	protected DocumentFilter getMinuteDocumentFilter() {
-		if (minDocumentFilter == null) {
-			minDocumentFilter = new MinuteDocumentFilter();
-		}
-		return minDocumentFilter;
+	protected FocusListener getSegmentFocusHandler() {
+		return SEGMENT_FOCUS_HANDLER;
 	}
 
 	/**
-	 * Returns the focus listener used to monitor the hour field
+	 * Returns the document listener, shared by all the segments, which moves
+	 * focus on once a segment is full
 	 *
 	 * @return
 	 */
-	protected FocusListener getHourFocusHandler() {
-		if (hourFocusHandler == null) {
-			hourFocusHandler = new HourFocusHandler();
-		}
-		return hourFocusHandler;
+	protected DocumentListener getSegmentDocumentHandler() {
+		return SEGMENT_DOCUMENT_HANDLER;
 	}
 
 	/**
-	 * Used the focus listener used to monitor the minute field
+	 * Returns the clock mode used to validate hour segments
 	 *
 	 * @return
 	 */
-	protected FocusListener getMinuteFocusHandler() {
-		if (minuteFocusHandler == null) {
-			minuteFocusHandler = new MinuteFocusHandler();
-		}
-		return minuteFocusHandler;
+	protected boolean is24HourClock() {
+		return true;
 	}
 
+	/**
+	 * @see SegmentFormat#pad(long, int)
+	 */
 	public static String pad(long lValue, int iMinLength) {
-		return pad(Long.toString(lValue), 2);
+		return SegmentFormat.pad(lValue, iMinLength);
 	}
 
+	/**
+	 * @see SegmentFormat#pad(int, int)
+	 */
 	public static String pad(int iValue, int iMinLength) {
-		return pad(Integer.toString(iValue), iMinLength);
+		return SegmentFormat.pad(iValue, iMinLength);
 	}
 
+	/**
+	 * @see SegmentFormat#pad(String, int)
+	 */
 	public static String pad(String sValue, int iMinLength) {
-		StringBuilder sb = new StringBuilder(iMinLength);
-		sb.append(sValue);
-		while (sb.length() < iMinLength) {
-			sb.insert(0, "0");
-		}
-		return sb.toString();
+		return SegmentFormat.pad(sValue, iMinLength);
 	}
 
-	protected void hourFieldLostFocus(FocusEvent evt) {
-		if (!evt.isTemporary()) {
-			String text = getHourField().getText();
-			if (text.length() < 2) {
-				text = pad(text, 2);
-				getHourField().setText(text);
-			}
+	/**
+	 * Pads a partially entered segment when it loses focus. Segments which
+	 * hold leading digits are filled out to the right, so a single minute digit
+	 * is the "tens" of the minute, others are padded with leading zeros
+	 *
+	 * @param index
+	 * @param evt
+	 */
+	protected void segmentLostFocus(int index, FocusEvent evt) {
+		if (evt.isTemporary() || !editorCreated) {
+			return;
 		}
-	}
-
-	protected void minuteFieldLostFocus(FocusEvent evt) {
-		if (!evt.isTemporary()) {
-			String text = getMinuteField().getText();
-			if (text.length() < 2) {
-				getMinuteField().setText(text + "0");
+		JTextField field = getSegmentField(index);
+		int padding = getSegmentPadding(index);
+		int length = field.getDocument().getLength();
+		if (length < padding) {
+			int value = getSegmentValue(index);
+			if (getSegmentSpec(index).isLeadingDigits()) {
+				for (int digit = length; digit < padding; digit++) {
+					value *= 10;
+				}
 			}
+			setFieldValue(field, value, padding);
 		}
 	}
 
-	protected void installKeyBinding(JComponent field, int condition, KeyStroke keyStroke, String name, Action action) {
-		InputMap im = field.getInputMap(condition);
-		im.put(keyStroke, name);
-
-		ActionMap am = field.getActionMap();
-		am.put(name, action);
-	}
-
 	protected void moveFocusToNextField(JComponent parent) {
-		List<JComponent> order = getFocusTraversalOrder();
-		Component current = KeyboardFocusManager.getCurrentKeyboardFocusManager().getFocusOwner();
-		if (current == parent) {
-			int index = order.indexOf(current);
-			if (index != -1) {
-				if (index == order.size() - 1) {
-					transferFocus();
-				} else {
-					JComponent next = order.get(index + 1);
-					next.requestFocusInWindow();
-				}
-			} else {
+		if (applyingValue) {
+			return;
+		}
+		int index = getSegmentIndex(parent);
+		if (index == -1) {
+			if (parent.isFocusOwner()) {
 				transferFocus();
 			}
+		} else if (index == focusedSegment) {
+			JComponent[] segments = getSegments();
+			if (index == segments.length - 1) {
+				lastFieldCompleted();
+			} else {
+				segments[index + 1].requestFocusInWindow();
+			}
 		}
 	}
 
 	protected void moveFocusToPreviousField(JComponent parent) {
-		List<JComponent> order = getFocusTraversalOrder();
-		Component current = KeyboardFocusManager.getCurrentKeyboardFocusManager().getFocusOwner();
-		if (current == parent) {
-			int index = order.indexOf(current);
-			if (index != -1) {
-				if (index == 0) {
-					transferFocusBackward();
-				} else {
-					JComponent previous = order.get(index - 1);
-					previous.requestFocusInWindow();
-				}
-			} else {
+		int index = getSegmentIndex(parent);
+		if (index == -1) {
+			if (parent.isFocusOwner()) {
 				transferFocusBackward();
 			}
+		} else if (index == focusedSegment) {
+			if (index == 0) {
+				transferFocusBackward();
+			} else {
+				getSegments()[index - 1].requestFocusInWindow();
+			}
 		}
 	}
 
-	protected abstract class AbstractFocusHandler extends FocusAdapter {
+	/**
+	 * This is a simple "pass" on action handler, shared by every field, which
+	 * merges the enter key of the individual segments into one
+	 */
+	protected static class ActionHandler implements ActionListener {
 
 		@Override
-		public void focusGained(FocusEvent e) {
-			if (e.getComponent() instanceof JTextComponent) {
-				JTextComponent field = (JTextComponent) e.getComponent();
-				field.selectAll();
+		public void actionPerformed(ActionEvent e) {
+			AbstractTimeField field = getOwner(e.getSource());
+			if (field != null && field.listenerList.getListenerCount(ActionListener.class) > 0) {
+				field.fireActionPerformed(new ActionEvent(field, e.getID(), COMMIT_ACTION_COMMAND, e.getWhen(), e.getModifiers()));
 			}
 		}
-
 	}
 
 	/**
-	 * Hour field focus handler. This watches for focus lost events a automatically pads the field with a leading "0" if the field is only 1 character in length
+	 * Applies the latest posted value on the EDT. If the last value was
+	 * applied less than a frame ago, a timer holds the value back until the
+	 * frame is up
 	 */
-	protected class HourFocusHandler extends AbstractFocusHandler {
+	private class PostedValueHandler implements Runnable, ActionListener {
+
+		private long lastApplied;
+		private Timer frameTimer;
 
 		@Override
-		public void focusLost(FocusEvent e) {
-			hourFieldLostFocus(e);
+		public void run() {
+			long wait = lastApplied + FRAME_NANOS - System.nanoTime();
+			if (lastApplied != 0 && wait > 0) {
+				if (frameTimer == null) {
+					frameTimer = new Timer(0, this);
+					frameTimer.setRepeats(false);
+				}
+				frameTimer.setInitialDelay((int) Math.max(1, wait / 1000000));
+				frameTimer.restart();
+			} else {
+				apply();
+			}
+		}
+
+		@Override
+		public void actionPerformed(ActionEvent e) {
+			apply();
+		}
+
+		private void apply() {
+			lastApplied = System.nanoTime();
+			long value = postedValue.getAndSet(NO_POSTED_VALUE);
+			if (value != NO_POSTED_VALUE) {
+				setValue(value);
+			}
 		}
 	}
 
 	/**
-	 * Minute field focus handler, watches for focus lost events and automatically adds a "0" to the end of the field if it is only 1 character in length
+	 * Watches the model for changes and schedules the value change
+	 * notification
 	 */
-	protected class MinuteFocusHandler extends AbstractFocusHandler {
+	protected class ModelHandler implements ChangeListener {
 
 		@Override
-		public void focusLost(FocusEvent e) {
-			minuteFieldLostFocus(e);
+		public void stateChanged(ChangeEvent e) {
+			scheduleValueChange();
 		}
-
 	}
 
-	protected class MoveFocusForwardHandler implements DocumentListener {
-
-		private JTextComponent parent;
-		private int maxLength;
+	/**
+	 * Tracks the focused segment and the editor idle timer. Handlers hold no
+	 * state, the field is found from the component
+	 */
+	protected static abstract class AbstractFocusHandler extends FocusAdapter {
 
-		public MoveFocusForwardHandler(JTextComponent parent, int maxLength) {
-			this.parent = parent;
-			this.maxLength = maxLength;
+		@Override
+		public void focusGained(FocusEvent e) {
+			AbstractTimeField field = getOwner(e.getComponent());
+			if (field == null) {
+				return;
+			}
+			if (field.editorIdleTimer != null) {
+				field.editorIdleTimer.stop();
+			}
+			field.focusedSegment = field.getSegmentIndex(e.getComponent());
+			if (e.getComponent() instanceof JTextComponent) {
+				((JTextComponent) e.getComponent()).selectAll();
+			}
 		}
 
-		public int getMaxLength() {
-			return maxLength;
+		@Override
+		public void focusLost(FocusEvent e) {
+			AbstractTimeField field = getOwner(e.getComponent());
+			if (field == null) {
+				return;
+			}
+			if (field.focusedSegment == field.getSegmentIndex(e.getComponent())) {
+				field.focusedSegment = -1;
+			}
+			Component opposite = e.getOppositeComponent();
+			if (!e.isTemporary() && (opposite == null || !SwingUtilities.isDescendingFrom(opposite, field))) {
+				field.restartEditorIdleTimer();
+			}
 		}
 
-		public JTextComponent getParent() {
-			return parent;
+	}
+
+	/**
+	 * Pads a partially entered segment when it loses focus
+	 */
+	protected static class SegmentFocusHandler extends AbstractFocusHandler {
+
+		@Override
+		public void focusLost(FocusEvent e) {
+			super.focusLost(e);
+			if (e.getComponent() instanceof JTextComponent) {
+				Document document = ((JTextComponent) e.getComponent()).getDocument();
+				AbstractTimeField field = getOwner(document);
+				int index = field != null ? field.getSpecIndex(document) : -1;
+				if (index != -1) {
+					field.segmentLostFocus(index, e);
+				}
+			}
 		}
+	}
+
+	/**
+	 * Moves focus on to the next segment once a fixed width segment is full
+	 */
+	protected static class MoveFocusForwardHandler implements DocumentListener {
 
 		@Override
 		public void insertUpdate(DocumentEvent e) {
@@ -412,9 +1723,13 @@ public abstract class AbstractTimeField extends JPanel {
 		}
 
 		protected void documentChanged(DocumentEvent e) {
-			if (getMaxLength() > 0) {
-				if (e.getDocument().getLength() >= getMaxLength()) {
-					moveFocusToNextField(getParent());
+			Document document = e.getDocument();
+			AbstractTimeField field = getOwner(document);
+			int index = field != null ? field.getSpecIndex(document) : -1;
+			if (index != -1 && field.editorCreated) {
+				int width = field.getSegmentSpec(index).getWidth();
+				if (width > 0 && document.getLength() >= width) {
+					field.moveFocusToNextField(field.getSegmentField(index));
 				}
 			}
 		}
@@ -422,180 +1737,350 @@ public abstract class AbstractTimeField extends JPanel {
 	}
 
 	/**
-	 * The document filter used to filter the minute field.
+	 * The document filter shared by all the segments of all fields, the rules
+	 * of each segment come from its spec. The field is found from the document
+	 * and the field's buffer is used to read the document, so the filter holds
+	 * no state of its own
 	 */
-	protected class MinuteDocumentFilter extends DocumentFilter {
+	protected static class SegmentDocumentFilter extends DocumentFilter {
 
 		@Override
 		public void insertString(DocumentFilter.FilterBypass fb, int offset, String text, AttributeSet attr) throws BadLocationException {
+			Document document = fb.getDocument();
+			AbstractTimeField field = getOwner(document);
+			int index = field != null ? field.getSpecIndex(document) : -1;
+			if (index == -1) {
+				super.insertString(fb, offset, text, attr);
+				return;
+			}
+			field.getTracer().filtered(field, field.getSegmentSpec(index).getType(), offset, text, Reason.INSERTED);
 			super.insertString(fb, offset, text, attr);
+			field.updateModel(index, document, field.valueBuffer);
 		}
 
 		@Override
-		public void replace(DocumentFilter.FilterBypass fb, int offset, int length, String text, AttributeSet attrs) throws BadLocationException {
+		public void remove(DocumentFilter.FilterBypass fb, int offset, int length) throws BadLocationException {
+			super.remove(fb, offset, length);
+			Document document = fb.getDocument();
+			AbstractTimeField field = getOwner(document);
+			int index = field != null ? field.getSpecIndex(document) : -1;
+			if (index != -1) {
+				field.updateModel(index, document, field.valueBuffer);
+			}
+		}
 
-			try {
-				boolean isAcceptable = false;
-
-				// How long is the text been added
-				int strLength = text.length();
-				// Convert the value to an integer now and save us the hassel
-				int value = Integer.parseInt(text);
-
-				// If the length is only 1, probably a new character has been added
-				if (strLength == 1) {
-					// The valid range of values we can accept
-					int upperRange = 9;
-					int lowerRange = 0;
-					if (offset == 0) {
-						// If we are at the first edit position, we can only accept values
-						// from 0-5 (50 minutes that is)
-						upperRange = 5;
-					}
+		@Override
+		public void replace(DocumentFilter.FilterBypass fb, int offset, int length, String text, AttributeSet attrs) throws BadLocationException {
 
-					// Is the value acceptable..
-					if (value >= lowerRange && value <= upperRange) {
-						isAcceptable = true;
-					}
+			Document document = fb.getDocument();
+			AbstractTimeField field = getOwner(document);
+			int index = field != null ? field.getSpecIndex(document) : -1;
+			if (index == -1) {
+				super.replace(fb, offset, length, text, attrs);
+				return;
+			}
+			SegmentSpec spec = field.getSegmentSpec(index);
+			SegmentType type = spec.getType();
+			int maximumDigits = field.getMaximumDigits(index);
+			boolean use24HourClock = field.is24HourClock();
+			Segment buffer = field.valueBuffer;
+
+			Reason reason;
+			String replacement = text;
+			long wholeValue = TimeParser.INVALID;
+
+			if (text == null || text.isEmpty()) {
+				reason = Reason.NO_TEXT;
+			} else if (text.length() > 1 && TimeParser.isWholeValue(text)) {
+				// A whole value has been pasted, it's applied to every segment
+				wholeValue = field.parseWholeValue(text);
+				reason = !TimeParser.isError(wholeValue) ? Reason.ACCEPTED : Reason.INVALID_VALUE;
+			} else if (text.length() == 1 || spec.getWidth() <= 0) {
+				// Typed digits, or any number of digits for unconstrained
+				// segments, up to the maximum
+				if (maximumDigits > 0 && document.getLength() - length + text.length() > maximumDigits) {
+					reason = Reason.TOO_LONG;
 				} else {
-          // Basically, we are going to trim the value down to at max 2 characters
-
-					// Need to know at what offest...
-					// 2 - offset..
-					// offset == 0, length = 2 - offset = 2
-					// offset == 1, length = 2 - offset = 1
-					strLength = 2 - offset;
-					String timeText = text.substring(offset, strLength);
-					value = Integer.parseInt(timeText);
-					if (value >= 0 && value <= 59) {
-						// Pad out the value as required
-						text = pad(value, 2);
-						isAcceptable = true;
+					reason = Reason.ACCEPTED;
+					int previous = SegmentValidator.digitBefore(document, offset, buffer);
+					for (int charIndex = 0; charIndex < text.length(); charIndex++) {
+						char c = text.charAt(charIndex);
+						if (!SegmentValidator.accepts(type, use24HourClock, offset + charIndex, previous, c)) {
+							reason = Reason.INVALID_CHARACTER;
+							break;
+						}
+						previous = c - '0';
 					}
-				}
-
-				if (isAcceptable) {
-					super.replace(fb, offset, length, text, attrs);
-					if (fb.getDocument().getLength() == 2) {
-						moveFocusToNextField(getMinuteField());
+					// The table only knows the digit before the caret, so
+					// check the digits after it too
+					if (reason.isAccepted() && !SegmentValidator.acceptsValue(type, use24HourClock,
+									SegmentValidator.valueAfter(document, offset, length, text, buffer))) {
+						reason = Reason.INVALID_VALUE;
 					}
 				}
+			} else {
+				// Basically, we are going to trim the value down to the width
+				// of the segment
+				int value = SegmentValidator.parseValue(type, use24HourClock, text, offset);
+				if (value != SegmentValidator.INVALID) {
+					// Pad out the value as required
+					replacement = pad(value, spec.getWidth());
+					reason = Reason.ACCEPTED;
+				} else {
+					reason = Reason.INVALID_VALUE;
+				}
+			}
 
-			} catch (NumberFormatException exp) {
+			field.getTracer().filtered(field, type, offset, text, reason);
+			if (!TimeParser.isError(wholeValue)) {
+				field.applyWholeValue(wholeValue);
+			} else if (reason.isAccepted()) {
+				super.replace(fb, offset, length, replacement, attrs);
+				field.updateModel(index, document, buffer);
 			}
 		}
 	}
 
-	public class TimeFocusTraversalPolicy
-					extends FocusTraversalPolicy {
+	/**
+	 * Traverses the segments of a time field by their index. The policy holds
+	 * no state of its own, so a single instance is shared by all fields.
+	 *
+	 * The field installs the policy as a focus traversal policy provider, moving
+	 * past the first or last segment returns null so focus leaves the field.
+	 */
+	public static class TimeFocusTraversalPolicy extends FocusTraversalPolicy {
+
+		private static final TimeFocusTraversalPolicy SHARED_INSTANCE = new TimeFocusTraversalPolicy();
+
+		public static TimeFocusTraversalPolicy getSharedInstance() {
+			return SHARED_INSTANCE;
+		}
+
+		protected TimeFocusTraversalPolicy() {
+		}
+
+		protected JComponent[] getSegments(Container focusCycleRoot) {
+			if (focusCycleRoot instanceof AbstractTimeField) {
+				AbstractTimeField field = (AbstractTimeField) focusCycleRoot;
+				if (field.isEditorCreated()) {
+					return field.getSegments();
+				}
+			}
+			return NO_SEGMENTS;
+		}
+
+		protected boolean accept(Component component) {
+			return component.isVisible() && component.isEnabled() && component.isFocusable();
+		}
 
-		private List<Component> order;
+		/**
+		 * Returns the first acceptable segment from the index, stepping in the
+		 * given direction
+		 */
+		private Component find(JComponent[] segments, int index, int step) {
+			for (; index >= 0 && index < segments.length; index += step) {
+				if (accept(segments[index])) {
+					return segments[index];
+				}
+			}
+			return null;
+		}
 
-		public TimeFocusTraversalPolicy(List<Component> order) {
-			this.order = new ArrayList<>(order.size());
-			this.order.addAll(order);
+		private int indexOf(Container focusCycleRoot, Component aComponent) {
+			if (focusCycleRoot instanceof AbstractTimeField) {
+				return ((AbstractTimeField) focusCycleRoot).getSegmentIndex(aComponent);
+			}
+			return -1;
 		}
 
 		@Override
 		public Component getComponentAfter(Container focusCycleRoot,
 						Component aComponent) {
-			int idx = (order.indexOf(aComponent) + 1) % order.size();
-			return order.get(idx);
+			int index = indexOf(focusCycleRoot, aComponent);
+			if (index == -1) {
+				return null;
+			}
+			return find(getSegments(focusCycleRoot), index + 1, 1);
 		}
 
 		@Override
 		public Component getComponentBefore(Container focusCycleRoot,
 						Component aComponent) {
-			int idx = order.indexOf(aComponent) - 1;
-			if (idx < 0) {
-				idx = order.size() - 1;
+			int index = indexOf(focusCycleRoot, aComponent);
+			if (index == -1) {
+				return null;
 			}
-			return order.get(idx);
+			return find(getSegments(focusCycleRoot), index - 1, -1);
 		}
 
 		@Override
 		public Component getDefaultComponent(Container focusCycleRoot) {
-			return order.get(0);
+			return getFirstComponent(focusCycleRoot);
 		}
 
 		@Override
 		public Component getLastComponent(Container focusCycleRoot) {
-			return order.get(order.size() - 1);
+			JComponent[] segments = getSegments(focusCycleRoot);
+			return find(segments, segments.length - 1, -1);
 		}
 
 		@Override
 		public Component getFirstComponent(Container focusCycleRoot) {
-			return order.get(0);
+			return find(getSegments(focusCycleRoot), 0, 1);
 		}
 	}
 
-	public class MoveFocusForward extends AbstractAction {
+	/**
+	 * Moves focus to the next segment, typically bound to the advance key of
+	 * the segment
+	 */
+	public static class MoveFocusForward extends AbstractAction {
 
 		@Override
 		public void actionPerformed(ActionEvent e) {
-			moveFocusToNextField((JComponent) e.getSource());
+			AbstractTimeField field = getOwner(e.getSource());
+			if (field != null) {
+				field.moveFocusToNextField((JComponent) e.getSource());
+			}
 		}
 
 	}
 
-	public class MoveFocusBackward extends AbstractAction {
+	public static class MoveFocusBackward extends AbstractAction {
 
 		@Override
 		public void actionPerformed(ActionEvent e) {
-			moveFocusToPreviousField((JComponent) e.getSource());
+			AbstractTimeField field = getOwner(e.getSource());
+			if (field != null) {
+				field.moveFocusToPreviousField((JComponent) e.getSource());
+			}
 		}
 
 	}
 
-	public class MoveFieldFocusForward extends AbstractAction {
+	/**
+	 * Moves focus to the next segment when the caret is at the end of the
+	 * segment the key was pressed in, otherwise, or in the last segment, the
+	 * caret is moved as normal
+	 */
+	public static class MoveFieldFocusForward extends AbstractAction {
 
-		private JTextComponent field;
 		private final boolean ignoreNumLock;
 
-		public MoveFieldFocusForward(JTextComponent field, boolean ignoreNumLock) {
-			this.field = field;
+		public MoveFieldFocusForward(boolean ignoreNumLock) {
 			this.ignoreNumLock = ignoreNumLock;
 		}
 
 		@Override
 		public void actionPerformed(ActionEvent e) {
-			boolean numLockOff = false;
-			try {
-				// Get the state of the nums lock
-				numLockOff = Toolkit.getDefaultToolkit().getLockingKeyState(KeyEvent.VK_NUM_LOCK);
-			} catch (Exception exp) {
-			}
-			if (ignoreNumLock || !numLockOff) {
-				if (field.getCaretPosition() >= field.getDocument().getLength()) {
-					moveFocusToNextField((JComponent) e.getSource());
+			// Get the state of the nums lock
+			boolean numLockOn = LockingKeyTracker.isNumLockOn();
+			AbstractTimeField owner = getOwner(e.getSource());
+			if ((ignoreNumLock || !numLockOn) && owner != null && e.getSource() instanceof JTextComponent) {
+				JTextComponent field = (JTextComponent) e.getSource();
+				int index = owner.getSegmentIndex(field);
+				if (index != -1 && index < owner.getSegments().length - 1
+								&& field.getCaretPosition() >= field.getDocument().getLength()) {
+					owner.moveFocusToNextField(field);
+				} else {
+					invokeAction(field, DefaultEditorKit.forwardAction, e);
 				}
 			}
 		}
 
 	}
 
-	public class MoveFieldFocusBackward extends AbstractAction {
+	/**
+	 * Moves focus to the previous segment when the caret is at the start of
+	 * the segment the key was pressed in, otherwise, or in the first segment,
+	 * the caret is moved as normal
+	 */
+	public static class MoveFieldFocusBackward extends AbstractAction {
 
-		private JTextComponent field;
 		private final boolean ignoreNumLock;
 
-		public MoveFieldFocusBackward(JTextComponent field, boolean ignoreNumLock) {
-			this.field = field;
+		public MoveFieldFocusBackward(boolean ignoreNumLock) {
 			this.ignoreNumLock = ignoreNumLock;
 		}
 
 		@Override
 		public void actionPerformed(ActionEvent e) {
-			boolean numLockOff = false;
-			try {
-				// Get the state of the nums lock
-				numLockOff = Toolkit.getDefaultToolkit().getLockingKeyState(KeyEvent.VK_NUM_LOCK);
-			} catch (Exception exp) {
+			// Get the state of the nums lock
+			boolean numLockOn = LockingKeyTracker.isNumLockOn();
+			AbstractTimeField owner = getOwner(e.getSource());
+			if ((ignoreNumLock || !numLockOn) && owner != null && e.getSource() instanceof JTextComponent) {
+				JTextComponent field = (JTextComponent) e.getSource();
+				if (owner.getSegmentIndex(field) > 0 && field.getCaretPosition() <= 1) {
+					owner.moveFocusToPreviousField(field);
+				} else {
+					invokeAction(field, DefaultEditorKit.backwardAction, e);
+				}
 			}
-			if ((ignoreNumLock || !numLockOff) && field.getCaretPosition() <= 1) {
-				moveFocusToPreviousField((JComponent) e.getSource());
+		}
+
+	}
+
+	/**
+	 * Looks up the bindings shared by the segments ahead of the segment's own
+	 * map, so each segment only needs a pointer to the shared bindings and the
+	 * map it replaces, which holds the look and feel bindings
+	 */
+	private static class SegmentInputMap extends InputMap {
+
+		private final InputMap bindings;
+
+		public SegmentInputMap(InputMap bindings, InputMap parent) {
+			this.bindings = bindings;
+			setParent(parent);
+		}
+
+		@Override
+		public Object get(KeyStroke keyStroke) {
+			Object binding = bindings.get(keyStroke);
+			return binding != null ? binding : super.get(keyStroke);
+		}
+
+		@Override
+		public KeyStroke[] allKeys() {
+			KeyStroke[] keys = super.allKeys();
+			KeyStroke[] shared = bindings.allKeys();
+			if (keys == null || shared == null) {
+				return keys == null ? shared : keys;
 			}
+			Set<KeyStroke> all = new LinkedHashSet<>(Arrays.asList(shared));
+			all.addAll(Arrays.asList(keys));
+			return all.toArray(new KeyStroke[all.size()]);
+		}
+	}
+
+	/**
+	 * The action counterpart of {@link SegmentInputMap}
+	 */
+	private static class SegmentActionMap extends ActionMap {
+
+		private final ActionMap actions;
+
+		public SegmentActionMap(ActionMap actions, ActionMap parent) {
+			this.actions = actions;
+			setParent(parent);
+		}
+
+		@Override
+		public Action get(Object key) {
+			Action action = actions.get(key);
+			return action != null ? action : super.get(key);
 		}
 
+		@Override
+		public Object[] allKeys() {
+			Object[] keys = super.allKeys();
+			Object[] shared = actions.allKeys();
+			if (keys == null || shared == null) {
+				return keys == null ? shared : keys;
+			}
+			Set<Object> all = new LinkedHashSet<>(Arrays.asList(shared));
+			all.addAll(Arrays.asList(keys));
+			return all.toArray();
+		}
 	}
 }
@@ -0,0 +1,56 @@
+package org.kaizen.ui;
+
+import java.time.Duration;
+
+/**
+ * Renders durations in the same format as {@link DurationField}, without the
+ * need to create a DurationField for each cell.
+ *
+ * Supports Duration and Number values, where numbers are a number of
+ * milliseconds. Negative durations are not displayed.
+ */
+public class DurationCellRenderer extends AbstractTimeCellRenderer {
+
+	private static final int HOUR = 0;
+	private static final int MINUTE = 1;
+	private static final int SECOND = 2;
+
+	public DurationCellRenderer() {
+		super(3);
+	}
+
+	@Override
+	protected int getSegmentColumns(int segment) {
+		return segment == HOUR ? 4 : 2;
+	}
+
+	@Override
+	protected int getSegmentPadding(int segment) {
+		return segment == HOUR ? 3 : 2;
+	}
+
+	@Override
+	protected char getSeparatorBefore(int segment) {
+		return segment == SECOND ? '.' : ':';
+	}
+
+	@Override
+	protected boolean setSegmentValues(Object value, int[] segments) {
+		long millis;
+		if (value instanceof Duration) {
+			millis = ((Duration) value).toMillis();
+		} else if (value instanceof Number) {
+			millis = ((Number) value).longValue();
+		} else {
+			return false;
+		}
+		if (millis < 0) {
+			return false;
+		}
+		segments[HOUR] = (int) Math.min(millis / TimeValueModel.MILLIS_PER_HOUR, Integer.MAX_VALUE);
+		segments[MINUTE] = (int) (millis / TimeValueModel.MILLIS_PER_MINUTE % 60);
+		segments[SECOND] = (int) (millis / TimeValueModel.MILLIS_PER_SECOND % 60);
+		return true;
+	}
+
+}
@@ -1,274 +1,531 @@
 package org.kaizen.ui;
 
-import java.awt.event.FocusEvent;
-import java.awt.event.FocusListener;
-import java.awt.event.KeyEvent;
+import java.awt.event.ActionEvent;
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.List;
-import javax.swing.JComponent;
-import javax.swing.JLabel;
+import java.util.concurrent.TimeUnit;
 import javax.swing.JTextField;
-import javax.swing.KeyStroke;
-import javax.swing.text.AbstractDocument;
-import javax.swing.text.AttributeSet;
-import javax.swing.text.BadLocationException;
-import javax.swing.text.DocumentFilter;
+import org.kaizen.ui.SegmentValidator.SegmentType;
 
 /**
  * Allows for the entry of a duration of time, where the number of hours is
- * unconstrained, but the minutes and seconds still conform to the basic 
+ * unconstrained, but the minutes and seconds still conform to the basic
  * requirements for their values
+ *
+ * The value is held as a long number of milliseconds by the model. The number
+ * of hour digits is limited by {@link #getMaximumHourDigits()}, values larger
+ * than the field can display are handled according to the
+ * {@link #getOverflowPolicy() overflow policy}.
+ *
+ * By default the field displays "HHH:mm.ss". A leading day segment can be
+ * shown with {@link #setDaysVisible(boolean)}, and the seconds dropped or a
+ * fraction of the second added with {@link #setPrecision(TimeUnit)}.
  */
 public class DurationField extends AbstractTimeField {
 
-	private HourDocumentFilter hourDocumentFilter;
+	/**
+	 * What happens when a value is too large for the field
+	 */
+	public enum OverflowPolicy {
+
+		/**
+		 * The value is replaced by the largest value the field can display
+		 * and the field is marked as {@link DurationField#isSaturated()
+		 * saturated}
+		 */
+		SATURATE,
+		/**
+		 * An ArithmeticException is thrown and the value is left unchanged
+		 */
+		THROW
+	}
+
+	/**
+	 * The action command used when a countdown reaches zero
+	 */
+	public static final String COUNTDOWN_COMPLETE_ACTION_COMMAND = "countdownComplete";
+
+	private static final int MAXIMUM_HOUR_DIGITS = 9;
+
+	// Only ever used on the EDT
+	private static AbstractTimeCellRenderer placeholderRenderer;
+
+	// Paints the placeholder when the layout differs from the default
+	private AbstractTimeCellRenderer layoutRenderer;
+
+	private int maximumHourDigits = MAXIMUM_HOUR_DIGITS;
+	// Volatile, as both are read by checkPostedValue on the posting thread
+	private volatile OverflowPolicy overflowPolicy = OverflowPolicy.SATURATE;
+	private volatile long maximumValue;
+	private boolean saturated;
 
-	private JTextField secondField;
-	private DocumentFilter secondDocumentFilter;
-	private FocusListener secondFocusHandler;
+	private boolean daysVisible;
+	private TimeUnit precision = TimeUnit.SECONDS;
+
+	// The time, in milliseconds since the epoch, a countdown reaches zero
+	private long countdownEnd;
 
 	public DurationField() {
+		this(false);
+	}
+
+	/**
+	 * Creates a new duration field
+	 *
+	 * @param lazy If true, the editor is not created until the user first
+	 * focuses or clicks on the field
+	 */
+	public DurationField(boolean lazy) {
+		this(lazy, false);
+	}
+
+	/**
+	 * Creates a new duration field
+	 *
+	 * @param lazy If true, the editor is not created until the user first
+	 * focuses or clicks on the field
+	 * @param singleComponentEditor If true, the segments are edited by a
+	 * single {@link SegmentedTimeEditor}
+	 */
+	public DurationField(boolean lazy, boolean singleComponentEditor) {
+		super(lazy, singleComponentEditor);
+		maximumValue = getMaximumValue();
 		setDuration(0, 0, 0);
 	}
-	
+
 	public void setDuration(int hour, int minute, int seconds) {
 		setHour(hour);
 		setMinute(minute);
 		setSeconds(seconds);
 	}
 
-	public long getDuration() throws NumberFormatException {
-
-		int hour = getHour();
-		int minute = getMinute();
-		int second = getSecond();
+	/**
+	 * Returns the duration in milliseconds
+	 *
+	 * @return
+	 */
+	public long getDuration() {
+		return getModel().getMillis();
+	}
 
-		return (hour * 60 * 60 * 1000)
-						+ (minute * 60 * 1000)
-						+ (second * 1000);
+	/**
+	 * Returns the duration
+	 *
+	 * @return
+	 */
+	public Duration toDuration() {
+		return getModel().toDuration();
+	}
 
+	/**
+	 * Sets the duration, any part of the duration smaller than the
+	 * {@link #getPrecision() precision} is discarded
+	 *
+	 * @param duration
+	 * @throws IllegalArgumentException if the duration is negative
+	 * @throws ArithmeticException if the duration is too large and the
+	 * overflow policy is {@link OverflowPolicy#THROW}
+	 */
+	public void setDuration(Duration duration) {
+		if (duration.isNegative()) {
+			throw new IllegalArgumentException("Durations can not be negative: " + duration);
+		}
+		if (duration.getSeconds() > getMaximumValue() / TimeValueModel.MILLIS_PER_SECOND) {
+			// Too large to convert to milliseconds safely, but it's an overflow
+			// either way
+			setValue(Long.MAX_VALUE);
+		} else {
+			setValue(duration.toMillis(), duration.getNano() % TimeValueModel.NANOS_PER_MILLI);
+		}
 	}
-	
+
+	/**
+	 * Sets the duration in milliseconds, any part smaller than the
+	 * {@link #getPrecision() precision} is discarded
+	 *
+	 * @param millis
+	 * @param nanoOfMillisecond
+	 * @throws ArithmeticException if the duration is too large and the
+	 * overflow policy is {@link OverflowPolicy#THROW}
+	 */
 	@Override
-	public void setHour(int hour) {
-		setFieldValue(getHourField(), hour, 3);
-	}
-	
-	public void setSeconds(int seconds) {
-		setFieldValue(getSecondField(), seconds, 2);
+	public void setValue(long millis, int nanoOfMillisecond) {
+		long value = checkOverflow(millis);
+		// A saturated value takes the largest fraction the field can display
+		super.setValue(value, value == millis ? nanoOfMillisecond : TimeValueModel.NANOS_PER_MILLI - 1);
 	}
 
-	public int getSecond() throws NumberFormatException {
-		return Integer.parseInt(getSecondField().getText());
+	/**
+	 * Counts the duration down to zero. The field is updated by the shared
+	 * tick on each whole second, together with every other live field, and an
+	 * action event with the {@link #COUNTDOWN_COMPLETE_ACTION_COMMAND} is
+	 * fired on the first tick at or after the end of the countdown.
+	 *
+	 * The countdown leaves the field alone while one of its segments has
+	 * focus, and completes once focus has left. Editing a segment stops the
+	 * countdown, the user's value is kept
+	 *
+	 * @param duration
+	 * @throws IllegalArgumentException if the duration is negative
+	 */
+	public void startCountdown(Duration duration) {
+		if (duration.isNegative()) {
+			throw new IllegalArgumentException("Durations can not be negative: " + duration);
+		}
+		startCountdown(duration.toMillis());
 	}
 
-	@Override
-	protected JTextField createHourField() {
-		JTextField field = super.createHourField();
-		field.setColumns(4);
-		return field;
+	/**
+	 * Counts down from the given number of milliseconds
+	 *
+	 * @param millis
+	 * @see #startCountdown(Duration)
+	 */
+	public void startCountdown(long millis) {
+		// Applies the overflow policy
+		setValue(millis);
+		long now = System.currentTimeMillis();
+		countdownEnd = now + (isSaturated() ? getValue() : millis);
+		updateValue(getLiveValue(now));
+		setLive(true);
 	}
-	
-	@Override
-	protected int getHourFocusForwardLength() {
-		return -1;
+
+	/**
+	 * Stops the countdown, the field keeps the value it is showing
+	 */
+	public void stopCountdown() {
+		setLive(false);
 	}
-	
-	protected int getSecondFocusForwardLength() {
-		return 2;
+
+	public boolean isCountingDown() {
+		return isLive();
 	}
 
-	protected JTextField createSecondField() {
-		JTextField secondField = new JTextField(2);
-		((AbstractDocument) secondField.getDocument()).setDocumentFilter(getSecondDocumentFilter());
-		secondField.addFocusListener(getSecondFocusHandler());
-		secondField.setHorizontalAlignment(JTextField.RIGHT);
-		secondField.getDocument().addDocumentListener(new MoveFocusForwardHandler(secondField, getMinuteFocusForwardLength()));
-		return secondField;
+	/**
+	 * The time left, rounded up to the resolution of the field, so the last
+	 * second is shown until the countdown is complete
+	 */
+	@Override
+	protected long getLiveValue(long now) {
+		long remaining = Math.max(0, countdownEnd - now);
+		long resolution = getResolution();
+		return (remaining + resolution - 1) / resolution * resolution;
 	}
 
 	@Override
-	protected JComponent[] getTimeFields() {
-		return new JComponent[]{
-			getHourField(),
-			new JLabel(":"),
-			getMinuteField(),
-			new JLabel("."),
-			getSecondField()
-		};
+	protected void liveTick(long now) {
+		if (isFocusWithin()) {
+			// The user may be about to edit the value, don't replace it
+			return;
+		}
+		super.liveTick(now);
+		if (now >= countdownEnd) {
+			stopCountdown();
+			updateValue(0);
+			fireActionPerformed(new ActionEvent(this, ActionEvent.ACTION_PERFORMED, COUNTDOWN_COMPLETE_ACTION_COMMAND));
+		}
 	}
 
+	/**
+	 * An edit made by the user stops a countdown
+	 */
 	@Override
-	protected List<JComponent> initFocusTransveralOrder() {
-		List<JComponent> order = super.initFocusTransveralOrder();
-		order.add(getSecondField());
-		return order;
+	protected void updateModel(int index, int value) {
+		super.updateModel(index, value);
+		if (isCountingDown() && isFocusWithin()) {
+			stopCountdown();
+		}
 	}
 
 	@Override
-	protected void installKeyBindings() {
-		super.installKeyBindings();
-
-		JTextField minuteField = getMinuteField();
-		installKeyBinding(
-						minuteField,
-						JComponent.WHEN_FOCUSED,
-						KeyStroke.getKeyStroke(KeyEvent.VK_PERIOD, 0),
-						"toSecondField",
-						new MoveFocusForward());
-
-		installKeyBinding(
-						minuteField,
-						JComponent.WHEN_FOCUSED,
-						KeyStroke.getKeyStroke(KeyEvent.VK_RIGHT, 0),
-						"afterMinuteArrow",
-						new MoveFieldFocusForward(minuteField, true));
-		installKeyBinding(
-						minuteField,
-						JComponent.WHEN_FOCUSED,
-						KeyStroke.getKeyStroke(KeyEvent.VK_NUMPAD6, 0),
-						"afterMinuteKeyPad",
-						new MoveFieldFocusForward(minuteField, false));
-
-		JTextField secondField = getMinuteField();
-		installKeyBinding(
-						secondField,
-						JComponent.WHEN_FOCUSED,
-						KeyStroke.getKeyStroke(KeyEvent.VK_LEFT, 0),
-						"beforeSecond",
-						new MoveFieldFocusBackward(minuteField, true));
-		installKeyBinding(
-						secondField,
-						JComponent.WHEN_FOCUSED,
-						KeyStroke.getKeyStroke(KeyEvent.VK_NUMPAD4, 0),
-						"beforeSecond",
-						new MoveFieldFocusBackward(secondField, false));
+	protected SegmentSpec[] createSegmentSpecs() {
+		return createSegmentSpecs(false, TimeUnit.SECONDS);
 	}
 
-	public JTextField getSecondField() {
-		if (secondField == null) {
-			secondField = createSecondField();
+	/**
+	 * Builds the segments for the given layout
+	 *
+	 * @param days If true, the duration starts with a day segment
+	 * @param precision The least significant segment
+	 * @return
+	 */
+	protected SegmentSpec[] createSegmentSpecs(boolean days, TimeUnit precision) {
+		List<SegmentSpec> specs = new ArrayList<>(5);
+		if (days) {
+			specs.add(SegmentSpec.DAY);
+			specs.add(SegmentSpec.HOUR.withSeparator(SegmentSpec.DAY.getAdvanceKey()));
+		} else {
+			specs.add(SegmentSpec.DURATION_HOUR);
 		}
-		return secondField;
+		if (precision == TimeUnit.MINUTES) {
+			specs.add(SegmentSpec.MINUTE);
+		} else {
+			specs.add(SegmentSpec.MINUTE.withAdvanceKey(SegmentSpec.SECOND.getSeparator()));
+			SegmentSpec fraction = getFractionSpec(precision);
+			if (fraction == null) {
+				specs.add(SegmentSpec.SECOND);
+			} else {
+				specs.add(SegmentSpec.SECOND.withAdvanceKey(fraction.getSeparator()));
+				specs.add(fraction);
+			}
+		}
+		return specs.toArray(new SegmentSpec[specs.size()]);
 	}
 
-	@Override
-	protected DocumentFilter getHourDocumentFilter() {
-		if (hourDocumentFilter == null) {
-			hourDocumentFilter = new HourDocumentFilter();
+	private static SegmentSpec getFractionSpec(TimeUnit precision) {
+		switch (precision) {
+			case MILLISECONDS:
+				return SegmentSpec.MILLISECOND;
+			case MICROSECONDS:
+				return SegmentSpec.MICROSECOND;
+			case NANOSECONDS:
+				return SegmentSpec.NANOSECOND;
 		}
-		return hourDocumentFilter;
+		return null;
 	}
 
-	protected DocumentFilter getSecondDocumentFilter() {
-		if (secondDocumentFilter == null) {
-			secondDocumentFilter = new SecondDocumentFilter();
+	public boolean isDaysVisible() {
+		return daysVisible;
+	}
+
+	/**
+	 * Sets if the duration starts with a day segment, the hours are then
+	 * limited to 0-23 and {@link #getMaximumHourDigits()} limits the days
+	 *
+	 * @param value
+	 */
+	public void setDaysVisible(boolean value) {
+		if (value != daysVisible) {
+			daysVisible = value;
+			layoutChanged();
+			firePropertyChange("daysVisible", !value, value);
 		}
-		return secondDocumentFilter;
+	}
+
+	public TimeUnit getPrecision() {
+		return precision;
 	}
 
 	/**
-	 * Returns the focus listener used to monitor the hour field
+	 * Sets the smallest unit displayed by the field, one of MINUTES, SECONDS
+	 * (the default), MILLISECONDS, MICROSECONDS or NANOSECONDS. The current
+	 * value is truncated to the new precision
 	 *
-	 * @return
+	 * @param value
 	 */
-	protected FocusListener getSecondFocusHandler() {
-		if (secondFocusHandler == null) {
-			secondFocusHandler = new SecondFocusHandler();
+	public void setPrecision(TimeUnit value) {
+		if (value == null || value == TimeUnit.HOURS || value == TimeUnit.DAYS) {
+			throw new IllegalArgumentException("Unsupported precision " + value);
+		}
+		TimeUnit old = precision;
+		if (value != old) {
+			precision = value;
+			layoutChanged();
+			firePropertyChange("precision", old, value);
 		}
-		return secondFocusHandler;
 	}
 
-	protected void secondFieldLostFocus(FocusEvent evt) {
-		String text = getSecondField().getText();
-		if (text.length() < 2) {
-			text = pad(text, 2);
-			getSecondField().setText(text);
+	/**
+	 * Rebuilds the segments once the days or precision have changed
+	 */
+	protected void layoutChanged() {
+		layoutRenderer = null;
+		setSegmentSpecs(createSegmentSpecs(daysVisible, precision));
+		maximumValue = getMaximumValue();
+		revalidate();
+		repaint();
+	}
+
+	/**
+	 * Returns the largest number of hours the field can display
+	 *
+	 * @return
+	 */
+	public long getMaximumHours() {
+		long leading = getMaximumLeadingValue();
+		return daysVisible ? leading * 24 + 23 : leading;
+	}
+
+	/**
+	 * Returns the largest value of the leading segment, that is, the largest
+	 * number with {@link #getMaximumHourDigits()} digits
+	 */
+	private long getMaximumLeadingValue() {
+		return TimeParser.largestValue(maximumHourDigits);
+	}
+
+	/**
+	 * Returns the largest value, in milliseconds, the field can display
+	 *
+	 * @return
+	 */
+	public long getMaximumValue() {
+		long weight = getSegmentSpec(0).getWeight() / SegmentSpec.NANOS_PER_MILLI;
+		return (getMaximumLeadingValue() + 1) * weight - getResolution();
+	}
+
+	public int getMaximumHourDigits() {
+		return maximumHourDigits;
+	}
+
+	/**
+	 * Sets the maximum number of digits which can be entered into the hour
+	 * segment, or the day segment when the days are visible, between 1 and 9.
+	 * The current value is not changed
+	 *
+	 * @param value
+	 */
+	public void setMaximumHourDigits(int value) {
+		if (value < 1 || value > MAXIMUM_HOUR_DIGITS) {
+			throw new IllegalArgumentException("Hour digits must be between 1 and " + MAXIMUM_HOUR_DIGITS + ": " + value);
 		}
+		int old = maximumHourDigits;
+		maximumHourDigits = value;
+		maximumValue = getMaximumValue();
+		firePropertyChange("maximumHourDigits", old, value);
+	}
+
+	@Override
+	protected int getMaximumDigits(int index) {
+		return index == 0 ? maximumHourDigits : super.getMaximumDigits(index);
+	}
+
+	public OverflowPolicy getOverflowPolicy() {
+		return overflowPolicy;
 	}
 
 	/**
-	 * Hour field focus handler. This watches for focus lost events a automatically pads the field with a leading "0" if the field is only 1 character in length
+	 * Sets what happens when a value too large for the field is set
+	 *
+	 * @param value
 	 */
-	protected class SecondFocusHandler extends AbstractFocusHandler {
+	public void setOverflowPolicy(OverflowPolicy value) {
+		if (value == null) {
+			throw new IllegalArgumentException("Overflow policy can not be null");
+		}
+		OverflowPolicy old = overflowPolicy;
+		overflowPolicy = value;
+		firePropertyChange("overflowPolicy", old, value);
+	}
 
-		@Override
-		public void focusLost(FocusEvent e) {
-			secondFieldLostFocus(e);
+	/**
+	 * Also applies the overflow policy, so posting a value which is too large
+	 * throws on the posting thread when the policy is
+	 * {@link OverflowPolicy#THROW}
+	 *
+	 * @param millis
+	 * @throws ArithmeticException if the duration is too large and the
+	 * overflow policy is {@link OverflowPolicy#THROW}
+	 */
+	@Override
+	protected void checkPostedValue(long millis) {
+		super.checkPostedValue(millis);
+		long maximum = maximumValue;
+		if (millis > maximum && overflowPolicy == OverflowPolicy.THROW) {
+			throw new ArithmeticException("Duration of " + millis + "ms exceeds the maximum of " + maximum + "ms");
 		}
 	}
 
-	protected class HourDocumentFilter extends DocumentFilter {
+	/**
+	 * Returns true if the last value set was too large and was replaced by
+	 * the maximum value
+	 *
+	 * @return
+	 */
+	public boolean isSaturated() {
+		return saturated;
+	}
 
-		@Override
-		public void insertString(DocumentFilter.FilterBypass fb, int offset, String text, AttributeSet attr) throws BadLocationException {
-			System.out.println("insert: offset = " + offset + "; text = " + text);
-			super.insertString(fb, offset, text, attr);
+	protected void setSaturated(boolean value) {
+		if (value != saturated) {
+			saturated = value;
+			firePropertyChange("saturated", !value, value);
 		}
+	}
 
-		@Override
-		public void replace(DocumentFilter.FilterBypass fb, int offset, int length, String text, AttributeSet attrs) throws BadLocationException {
+	/**
+	 * Applies the overflow policy to a value
+	 *
+	 * @param millis
+	 * @return The value which should be displayed
+	 */
+	protected long checkOverflow(long millis) {
+		long maximum = getMaximumValue();
+		boolean overflow = millis > maximum;
+		if (overflow && overflowPolicy == OverflowPolicy.THROW) {
+			throw new ArithmeticException("Duration of " + millis + "ms exceeds the maximum of " + maximum + "ms");
+		}
+		setSaturated(overflow);
+		return overflow ? maximum : millis;
+	}
 
-			try {
-				// We convert the value here to make sure it's a number...
-				int value = Integer.parseInt(text);
-				super.replace(fb, offset, length, text, attrs);
-			} catch (NumberFormatException exp) {
-			}
+	/**
+	 * Sets the total number of hours, the rest of the duration is unchanged.
+	 * Negative values are ignored
+	 *
+	 * @param hour
+	 * @throws ArithmeticException if the duration is too large and the
+	 * overflow policy is {@link OverflowPolicy#THROW}
+	 */
+	@Override
+	public void setHour(int hour) {
+		if (hour < 0) {
+			return;
 		}
+		TimeValueModel model = getModel();
+		setValue(hour * TimeValueModel.MILLIS_PER_HOUR + model.getMillis() % TimeValueModel.MILLIS_PER_HOUR,
+						model.getNanoOfMillisecond());
 	}
 
-	protected class SecondDocumentFilter extends DocumentFilter {
+	public void setSeconds(int seconds) {
+		setSegmentValue(SegmentType.SECOND, seconds);
+	}
 
-		@Override
-		public void insertString(DocumentFilter.FilterBypass fb, int offset, String text, AttributeSet attr) throws BadLocationException {
-			super.insertString(fb, offset, text, attr);
+	public int getSecond() {
+		return getModel().getSecond();
+	}
+
+	@Override
+	protected long parseWholeValue(CharSequence text) {
+		long millis = TimeParser.parseDuration(text);
+		if (TimeParser.isError(millis)) {
+			return millis;
 		}
+		if (millis > getMaximumValue()) {
+			return TimeParser.OUT_OF_RANGE;
+		}
+		return millis - millis % getResolution();
+	}
 
-		@Override
-		public void replace(DocumentFilter.FilterBypass fb, int offset, int length, String text, AttributeSet attrs) throws BadLocationException {
-
-			try {
-				boolean isAcceptable = false;
-
-				// How long is the text been added
-				int strLength = text.length();
-				// Convert the value to an integer now and save us the hassel
-				int value = Integer.parseInt(text);
-
-				// If the length is only 1, probably a new character has been added
-				if (strLength == 1) {
-					// The valid range of values we can accept
-					int upperRange = 9;
-					int lowerRange = 0;
-
-					// Is the value acceptable..
-					if (value >= lowerRange && value <= upperRange) {
-						isAcceptable = true;
-					}
-				} else {
-          // Basically, we are going to trim the value down to at max 2 characters
-
-					// Need to know at what offest...
-					// 2 - offset..
-					// offset == 0, length = 2 - offset = 2
-					// offset == 1, length = 2 - offset = 1
-					strLength = 2 - offset;
-					String timeText = text.substring(offset, strLength);
-					value = Integer.parseInt(timeText);
-					if (value >= 0 && value <= 59) {
-						// Pad out the value as required
-						text = pad(value, 2);
-						isAcceptable = true;
-					}
-				}
-
-				if (isAcceptable) {
-					super.replace(fb, offset, length, text, attrs);
-				}
-
-			} catch (NumberFormatException exp) {
+	@Override
+	protected AbstractTimeCellRenderer getPlaceholderRenderer() {
+		if (daysVisible || precision != TimeUnit.SECONDS) {
+			if (layoutRenderer == null) {
+				layoutRenderer = new SegmentCellRenderer(getSegmentSpecs());
+				layoutRenderer.setOpaque(false);
 			}
+			return layoutRenderer;
 		}
+		if (placeholderRenderer == null) {
+			placeholderRenderer = new DurationCellRenderer();
+			placeholderRenderer.setOpaque(false);
+		}
+		return placeholderRenderer;
+	}
+
+	@Override
+	protected Object getPlaceholderValue() {
+		return toDuration();
+	}
+
+	/**
+	 * Returns the second segment, or null if the precision is minutes
+	 *
+	 * @return
+	 */
+	public JTextField getSecondField() {
+		return getSegmentField(SegmentType.SECOND);
 	}
 
 }
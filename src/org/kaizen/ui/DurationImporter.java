@@ -0,0 +1,327 @@
+package org.kaizen.ui;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Imports a file of durations, one per line, into a long[] of milliseconds.
+ *
+ * Each line is parsed with {@link TimeParser#parsePackedDuration}, so it must
+ * follow the same rules as a {@link DurationField}, "HHH:mm:ss", "HHH:mm.ss" or
+ * "HH:mm". Line endings may be "\n" or "\r\n". Hours with more digits than
+ * the {@link #getMaximumHourDigits() maximum} are rejected as out of range,
+ * the same as pasting them into a field with that many hour digits.
+ *
+ * The file is memory mapped and split into chunks on line boundaries, the
+ * chunks are processed in parallel on a fork-join pool in two passes. The
+ * first pass counts the lines of each chunk, so the result array can be
+ * allocated up front and every chunk knows the row it starts at. The second
+ * pass parses each line straight out of the mapped bytes into the result
+ * array, no Strings are created for the rows.
+ *
+ * Rejected lines keep their row in the result, holding the (negative) error
+ * code from {@link TimeParser}, and are reported to the {@link RejectHandler}
+ * in line order once the import is complete.
+ */
+public class DurationImporter {
+
+	/**
+	 * Notified of the lines which could not be parsed
+	 */
+	public interface RejectHandler {
+
+		/**
+		 * Called for each rejected line, in line order, on the thread which
+		 * called {@link #importFile}
+		 *
+		 * @param line The zero based line number
+		 * @param offset The offset of the start of the line within the file
+		 * @param errorCode The error code returned by {@link TimeParser}
+		 */
+		public void rejected(long line, long offset, int errorCode);
+	}
+
+	private static final int DEFAULT_CHUNK_SIZE = 16 * 1024 * 1024;
+	/**
+	 * The longest line which will be parsed, anything longer can't be a
+	 * valid duration
+	 */
+	private static final int MAX_LINE_LENGTH = 64;
+	private static final int MAX_ROWS = Integer.MAX_VALUE - 8;
+	// The same as the default of DurationField
+	private static final int MAXIMUM_HOUR_DIGITS = 9;
+
+	private final ForkJoinPool pool;
+	private int chunkSize = DEFAULT_CHUNK_SIZE;
+	private int maximumHourDigits = MAXIMUM_HOUR_DIGITS;
+
+	/**
+	 * Creates an importer which runs on the common fork-join pool
+	 */
+	public DurationImporter() {
+		this(ForkJoinPool.commonPool());
+	}
+
+	public DurationImporter(ForkJoinPool pool) {
+		this.pool = pool;
+	}
+
+	public int getChunkSize() {
+		return chunkSize;
+	}
+
+	/**
+	 * Sets the number of bytes processed by each task. Each chunk is mapped
+	 * separately, so very small chunks will use a lot of mappings
+	 *
+	 * @param value
+	 */
+	public void setChunkSize(int value) {
+		if (value < 1) {
+			throw new IllegalArgumentException("Chunk size must be positive");
+		}
+		chunkSize = value;
+	}
+
+	public int getMaximumHourDigits() {
+		return maximumHourDigits;
+	}
+
+	/**
+	 * Sets the maximum number of hour digits, between 1 and 9, which should
+	 * match the {@link DurationField#setMaximumHourDigits(int) field} the
+	 * durations are destined for
+	 *
+	 * @param value
+	 */
+	public void setMaximumHourDigits(int value) {
+		if (value < 1 || value > MAXIMUM_HOUR_DIGITS) {
+			throw new IllegalArgumentException("Hour digits must be between 1 and " + MAXIMUM_HOUR_DIGITS + ": " + value);
+		}
+		maximumHourDigits = value;
+	}
+
+	/**
+	 * Imports the file, rejected lines hold their error code
+	 *
+	 * @param file
+	 * @return The duration of each line in milliseconds
+	 * @throws IOException
+	 */
+	public long[] importFile(Path file) throws IOException {
+		return importFile(file, null);
+	}
+
+	/**
+	 * Imports the file
+	 *
+	 * @param file
+	 * @param rejects Notified of each line which could not be parsed, may be
+	 * null
+	 * @return The duration of each line in milliseconds, rejected lines hold
+	 * their error code
+	 * @throws IOException
+	 */
+	public long[] importFile(Path file, RejectHandler rejects) throws IOException {
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			long size = channel.size();
+			int count = (int) Math.max(1, (size + chunkSize - 1) / chunkSize);
+			Chunk[] chunks = new Chunk[count];
+			for (int index = 0; index < count; index++) {
+				long start = index * (long) chunkSize;
+				long end = Math.min(size, start + chunkSize);
+				chunks[index] = new Chunk(channel, size, start, end, maximumHourDigits);
+			}
+
+			pool.invoke(new ChunkAction(chunks, 0, count, null));
+
+			long rows = 0;
+			for (Chunk chunk : chunks) {
+				chunk.firstRow = rows;
+				rows += chunk.rows;
+			}
+			if (rows > MAX_ROWS) {
+				throw new IOException("Too many lines to import (" + rows + ")");
+			}
+
+			long[] durations = new long[(int) rows];
+			pool.invoke(new ChunkAction(chunks, 0, count, durations));
+
+			if (rejects != null) {
+				for (Chunk chunk : chunks) {
+					for (int index = 0; index < chunk.rejectCount; index++) {
+						long row = chunk.rejectRows[index];
+						rejects.rejected(row, chunk.rejectOffsets[index], (int) durations[(int) row]);
+					}
+				}
+			}
+			return durations;
+		}
+	}
+
+	/**
+	 * Runs the count pass (when there is no result array) or the parse pass
+	 * over a range of the chunks
+	 */
+	private static class ChunkAction extends RecursiveAction {
+
+		private final Chunk[] chunks;
+		private final int from;
+		private final int to;
+		private final long[] durations;
+
+		public ChunkAction(Chunk[] chunks, int from, int to, long[] durations) {
+			this.chunks = chunks;
+			this.from = from;
+			this.to = to;
+			this.durations = durations;
+		}
+
+		@Override
+		protected void compute() {
+			if (to - from == 1) {
+				if (durations == null) {
+					chunks[from].count();
+				} else {
+					chunks[from].parse(durations);
+				}
+			} else {
+				int middle = (from + to) >>> 1;
+				invokeAll(new ChunkAction(chunks, from, middle, durations),
+								new ChunkAction(chunks, middle, to, durations));
+			}
+		}
+	}
+
+	/**
+	 * A range of the file. The chunk owns every line which starts within its
+	 * range, the last of which may run past the end of the range
+	 */
+	private static class Chunk {
+
+		private final long start;
+		private final long end;
+		// The mapping starts one byte early, so we can tell if a line starts
+		// at the start of the range, and runs on past the end far enough to
+		// finish the last line, anything longer is rejected anyway
+		private final long mapStart;
+		private final MappedByteBuffer buffer;
+		private final int maximumHourDigits;
+
+		private long rows;
+		private long firstRow;
+
+		private int rejectCount;
+		private long[] rejectRows;
+		private long[] rejectOffsets;
+
+		public Chunk(FileChannel channel, long size, long start, long end, int maximumHourDigits) throws IOException {
+			this.start = start;
+			this.end = end;
+			this.maximumHourDigits = maximumHourDigits;
+			mapStart = Math.max(0, start - 1);
+			long mapEnd = Math.min(size, end + MAX_LINE_LENGTH + 2);
+			buffer = channel.map(FileChannel.MapMode.READ_ONLY, mapStart, mapEnd - mapStart);
+		}
+
+		private byte byteAt(long position) {
+			return buffer.get((int) (position - mapStart));
+		}
+
+		private long limit() {
+			return mapStart + buffer.limit();
+		}
+
+		/**
+		 * Returns the position of the first line starting within the range
+		 */
+		private long firstLineStart() {
+			long position = start;
+			if (position > 0) {
+				// Skip the tail of the line owned by the previous chunk
+				long limit = Math.min(end, limit());
+				while (position < limit && byteAt(position - 1) != '\n') {
+					position++;
+				}
+			}
+			return position;
+		}
+
+		public void count() {
+			long position = firstLineStart();
+			if (position >= end) {
+				return;
+			}
+			// The first line, then every new line before the end of the range
+			long lines = 1;
+			for (; position < end - 1; position++) {
+				if (byteAt(position) == '\n') {
+					lines++;
+				}
+			}
+			rows = lines;
+		}
+
+		public void parse(long[] durations) {
+			char[] line = new char[MAX_LINE_LENGTH];
+			long limit = limit();
+			long row = firstRow;
+			long position = firstLineStart();
+			while (position < end) {
+				long lineStart = position;
+				int length = 0;
+				boolean tooLong = false;
+				while (position < limit) {
+					byte b = byteAt(position);
+					if (b == '\n') {
+						break;
+					}
+					if (length < line.length) {
+						line[length++] = (char) (b & 0xFF);
+					} else {
+						tooLong = true;
+					}
+					position++;
+				}
+				if (length > 0 && line[length - 1] == '\r') {
+					length--;
+				}
+				long value;
+				if (tooLong) {
+					value = TimeParser.INVALID_LENGTH;
+				} else {
+					value = TimeParser.parsePackedDuration(line, 0, length, maximumHourDigits);
+					if (!TimeParser.isError(value)) {
+						value = TimeParser.packedDurationToMillis(value);
+					}
+				}
+				durations[(int) row] = value;
+				if (TimeParser.isError(value)) {
+					reject(row, lineStart);
+				}
+				row++;
+				// Skip the line ending
+				position++;
+			}
+		}
+
+		private void reject(long row, long offset) {
+			if (rejectRows == null) {
+				rejectRows = new long[16];
+				rejectOffsets = new long[16];
+			} else if (rejectCount == rejectRows.length) {
+				rejectRows = Arrays.copyOf(rejectRows, rejectCount * 2);
+				rejectOffsets = Arrays.copyOf(rejectOffsets, rejectCount * 2);
+			}
+			rejectRows[rejectCount] = row;
+			rejectOffsets[rejectCount] = offset;
+			rejectCount++;
+		}
+	}
+}
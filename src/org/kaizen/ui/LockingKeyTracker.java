@@ -0,0 +1,89 @@
+package org.kaizen.ui;
+
+import java.awt.KeyEventDispatcher;
+import java.awt.KeyboardFocusManager;
+import java.awt.Toolkit;
+import java.awt.event.KeyEvent;
+import java.beans.PropertyChangeEvent;
+import java.beans.PropertyChangeListener;
+
+/**
+ * Tracks the state of the num lock key.
+ *
+ * Asking the Toolkit for the state of a locking key is a native call, which
+ * on some platforms isn't supported at all and throws an exception. Rather
+ * than asking on every key stroke, the state is queried once, when the tracker
+ * is first used and again whenever a window gains focus (as the key may have
+ * been pressed while another application had focus). In between, a single
+ * shared KeyEventDispatcher watches for the num lock key been pressed.
+ */
+public final class LockingKeyTracker {
+
+	private static volatile boolean numLockOn;
+	// Only set once the state has been read and the listeners are in place
+	private static volatile boolean installed;
+
+	private LockingKeyTracker() {
+	}
+
+	/**
+	 * Returns true if num lock is on. If the state can't be determined, this
+	 * returns false
+	 *
+	 * @return
+	 */
+	public static boolean isNumLockOn() {
+		if (!installed) {
+			install();
+		}
+		return numLockOn;
+	}
+
+	private static synchronized void install() {
+		if (installed) {
+			return;
+		}
+		refresh();
+		try {
+			KeyboardFocusManager manager = KeyboardFocusManager.getCurrentKeyboardFocusManager();
+			manager.addKeyEventDispatcher(new NumLockDispatcher());
+			manager.addPropertyChangeListener("focusedWindow", new FocusedWindowHandler());
+		} catch (SecurityException exp) {
+			// The state will only ever be read once
+		}
+		installed = true;
+	}
+
+	/**
+	 * Queries the Toolkit for the current state of the num lock key
+	 */
+	static void refresh() {
+		try {
+			numLockOn = Toolkit.getDefaultToolkit().getLockingKeyState(KeyEvent.VK_NUM_LOCK);
+		} catch (Exception exp) {
+			numLockOn = false;
+		}
+	}
+
+	private static class NumLockDispatcher implements KeyEventDispatcher {
+
+		@Override
+		public boolean dispatchKeyEvent(KeyEvent e) {
+			if (e.getID() == KeyEvent.KEY_PRESSED && e.getKeyCode() == KeyEvent.VK_NUM_LOCK) {
+				numLockOn = !numLockOn;
+			}
+			return false;
+		}
+	}
+
+	private static class FocusedWindowHandler implements PropertyChangeListener {
+
+		@Override
+		public void propertyChange(PropertyChangeEvent evt) {
+			if (evt.getNewValue() != null) {
+				refresh();
+			}
+		}
+	}
+
+}
@@ -0,0 +1,117 @@
+package org.kaizen.ui;
+
+import java.io.IOException;
+import javax.swing.JComponent;
+import org.kaizen.ui.SegmentValidator.SegmentType;
+
+/**
+ * A tracer which keeps the last n filter decisions in memory.
+ *
+ * Recording a decision stores a handful of references and primitives into
+ * pre-allocated arrays, so it is safe to leave running in production. The
+ * fields themselves are not retained, only their identity hash codes. The
+ * buffer can be written out on demand using {@link #dump(Appendable)}.
+ */
+public class RingBufferTracer implements TimeFieldTracer {
+
+	private final long[] times;
+	private final int[] fields;
+	private final SegmentType[] segments;
+	private final int[] offsets;
+	private final String[] texts;
+	private final Reason[] reasons;
+
+	private int next;
+	private long count;
+
+	public RingBufferTracer(int capacity) {
+		if (capacity <= 0) {
+			throw new IllegalArgumentException("Capacity must be greater than 0");
+		}
+		times = new long[capacity];
+		fields = new int[capacity];
+		segments = new SegmentType[capacity];
+		offsets = new int[capacity];
+		texts = new String[capacity];
+		reasons = new Reason[capacity];
+	}
+
+	@Override
+	public synchronized void filtered(JComponent field, SegmentType segment, int offset, String text, Reason reason) {
+		times[next] = System.nanoTime();
+		fields[next] = System.identityHashCode(field);
+		segments[next] = segment;
+		offsets[next] = offset;
+		texts[next] = text;
+		reasons[next] = reason;
+		next = (next + 1) % times.length;
+		count++;
+	}
+
+	/**
+	 * Returns the maximum number of decisions which are kept
+	 *
+	 * @return
+	 */
+	public int getCapacity() {
+		return times.length;
+	}
+
+	/**
+	 * Returns the total number of decisions which have been recorded, including
+	 * those which have since been overwritten
+	 *
+	 * @return
+	 */
+	public synchronized long getCount() {
+		return count;
+	}
+
+	/**
+	 * Discards all the recorded decisions
+	 */
+	public synchronized void clear() {
+		for (int index = 0; index < texts.length; index++) {
+			segments[index] = null;
+			texts[index] = null;
+			reasons[index] = null;
+		}
+		next = 0;
+		count = 0;
+	}
+
+	/**
+	 * Writes the recorded decisions, oldest first, one per line
+	 *
+	 * @param out
+	 * @throws IOException
+	 */
+	public synchronized void dump(Appendable out) throws IOException {
+		int capacity = times.length;
+		int size = (int) Math.min(count, capacity);
+		int start = (next - size + capacity) % capacity;
+		for (int index = 0; index < size; index++) {
+			int slot = (start + index) % capacity;
+			out.append(Long.toString(times[slot]))
+							.append(" field=").append(Integer.toHexString(fields[slot]))
+							.append(" segment=").append(String.valueOf(segments[slot]))
+							.append(" offset=").append(Integer.toString(offsets[slot]))
+							.append(" text=").append(texts[slot] == null ? "null" : "\"" + texts[slot] + "\"")
+							.append(" ").append(reasons[slot].isAccepted() ? "accepted" : "rejected")
+							.append(" (").append(reasons[slot].name()).append(")")
+							.append(System.lineSeparator());
+		}
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder();
+		try {
+			dump(sb);
+		} catch (IOException exp) {
+			// StringBuilder doesn't throw IOException
+		}
+		return sb.toString();
+	}
+
+}
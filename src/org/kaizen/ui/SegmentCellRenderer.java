@@ -0,0 +1,61 @@
+package org.kaizen.ui;
+
+import java.time.Duration;
+
+/**
+ * Renders time values laid out by an array of {@link SegmentSpec}s, the same
+ * way as a field built from the same specs.
+ *
+ * Supports Duration and Number values, where numbers are a number of
+ * milliseconds. Negative values are not displayed.
+ */
+public class SegmentCellRenderer extends AbstractTimeCellRenderer {
+
+	private final SegmentSpec[] specs;
+
+	public SegmentCellRenderer(SegmentSpec... specs) {
+		super(specs.length);
+		this.specs = specs.clone();
+	}
+
+	@Override
+	protected int getSegmentColumns(int segment) {
+		return specs[segment].getColumns();
+	}
+
+	@Override
+	protected int getSegmentPadding(int segment) {
+		return specs[segment].getPadding();
+	}
+
+	@Override
+	protected char getSeparatorBefore(int segment) {
+		return specs[segment].getSeparator();
+	}
+
+	@Override
+	protected boolean setSegmentValues(Object value, int[] segments) {
+		long millis;
+		int nanos = 0;
+		if (value instanceof Duration) {
+			Duration duration = (Duration) value;
+			if (duration.isNegative()) {
+				return false;
+			}
+			millis = duration.toMillis();
+			nanos = duration.getNano() % TimeValueModel.NANOS_PER_MILLI;
+		} else if (value instanceof Number) {
+			millis = ((Number) value).longValue();
+		} else {
+			return false;
+		}
+		if (millis < 0) {
+			return false;
+		}
+		for (int segment = 0; segment < specs.length; segment++) {
+			segments[segment] = specs[segment].valueOf(millis, nanos);
+		}
+		return true;
+	}
+
+}
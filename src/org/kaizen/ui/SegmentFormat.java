@@ -0,0 +1,152 @@
+package org.kaizen.ui;
+
+import javax.swing.text.BadLocationException;
+import javax.swing.text.Document;
+import javax.swing.text.Segment;
+
+/**
+ * Formats segment values as zero padded digits.
+ *
+ * The strings for the common values, "0".."9", "00".."99" and "000".."999",
+ * are pre-computed and interned, so padding minutes, seconds and the hours of
+ * most durations returns a shared instance rather than building a new String.
+ * Larger values are written into a caller supplied char[] using
+ * {@link #format(long, int, char[])}, which never allocates.
+ */
+public final class SegmentFormat {
+
+	private static final int CACHED_WIDTHS = 3;
+	private static final String[][] CACHE = new String[CACHED_WIDTHS + 1][];
+
+	static {
+		int limit = 1;
+		for (int width = 1; width <= CACHED_WIDTHS; width++) {
+			limit *= 10;
+			String[] values = new String[limit];
+			char[] buffer = new char[width];
+			for (int value = 0; value < limit; value++) {
+				int start = format(value, width, buffer);
+				values[value] = new String(buffer, start, width - start).intern();
+			}
+			CACHE[width] = values;
+		}
+	}
+
+	private SegmentFormat() {
+	}
+
+	/**
+	 * Returns the value padded with leading zeros to at least the given width
+	 *
+	 * @param value
+	 * @param width
+	 * @return
+	 */
+	public static String pad(int value, int width) {
+		return pad((long) value, width);
+	}
+
+	/**
+	 * Returns the value padded with leading zeros to at least the given width
+	 *
+	 * @param value
+	 * @param width
+	 * @return
+	 */
+	public static String pad(long value, int width) {
+		if (value < 0) {
+			return pad(Long.toString(value), width);
+		}
+		int cacheWidth = Math.max(width, 1);
+		// Find the smallest cached width which will hold the value
+		long limit = 10;
+		for (int index = 1; index < cacheWidth; index++) {
+			limit *= 10;
+		}
+		while (value >= limit && cacheWidth <= CACHED_WIDTHS) {
+			limit *= 10;
+			cacheWidth++;
+		}
+		if (cacheWidth <= CACHED_WIDTHS && width <= CACHED_WIDTHS) {
+			return CACHE[cacheWidth][(int) value];
+		}
+		char[] buffer = new char[Math.max(width, 19)];
+		int start = format(value, width, buffer);
+		return new String(buffer, start, buffer.length - start);
+	}
+
+	/**
+	 * Returns the text padded with leading zeros to at least the given width
+	 *
+	 * @param value
+	 * @param width
+	 * @return
+	 */
+	public static String pad(String value, int width) {
+		int length = value.length();
+		if (length >= width) {
+			return value;
+		}
+		char[] buffer = new char[width];
+		int start = width - length;
+		for (int index = 0; index < start; index++) {
+			buffer[index] = '0';
+		}
+		value.getChars(0, length, buffer, start);
+		return new String(buffer);
+	}
+
+	/**
+	 * Writes the value, padded with leading zeros to at least the given width,
+	 * into the end of the buffer. Negative values are treated as 0.
+	 *
+	 * @param value The value to be written
+	 * @param width The minimum number of digits
+	 * @param buffer The buffer to write to, digits which don't fit are
+	 * discarded
+	 * @return The index of the first digit within the buffer
+	 */
+	public static int format(long value, int width, char[] buffer) {
+		int index = buffer.length;
+		if (index == 0) {
+			return 0;
+		}
+		value = Math.max(0, value);
+		do {
+			buffer[--index] = (char) ('0' + value % 10);
+			value /= 10;
+		} while (value > 0 && index > 0);
+		while (buffer.length - index < width && index > 0) {
+			buffer[--index] = '0';
+		}
+		return index;
+	}
+
+	/**
+	 * Returns true if the document already contains the text. The supplied
+	 * segment is used to read the document without allocating a String
+	 *
+	 * @param document
+	 * @param text
+	 * @param buffer
+	 * @return
+	 */
+	static boolean contentEquals(Document document, String text, Segment buffer) {
+		int length = document.getLength();
+		if (length != text.length()) {
+			return false;
+		}
+		try {
+			document.getText(0, length, buffer);
+		} catch (BadLocationException exp) {
+			return false;
+		}
+		for (int index = 0; index < length; index++) {
+			if (buffer.array[buffer.offset + index] != text.charAt(index)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+}
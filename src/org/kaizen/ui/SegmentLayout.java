@@ -0,0 +1,190 @@
+package org.kaizen.ui;
+
+import java.awt.Component;
+import java.awt.Container;
+import java.awt.Dimension;
+import java.awt.Font;
+import java.awt.FontMetrics;
+import java.awt.Insets;
+import java.awt.LayoutManager;
+import java.util.Map;
+import java.util.WeakHashMap;
+import javax.swing.JComponent;
+import javax.swing.JLabel;
+import javax.swing.JTextField;
+
+/**
+ * Lays the segments and separators of a time field out in a single row, the
+ * row is centered within the container.
+ *
+ * Unlike GridBagLayout, which asks every child for its preferred size on each
+ * validation, the children are measured once, text fields from their columns
+ * and the widest digit of their font, labels from their text, and the
+ * preferred size is cached. Any other child, such as the panel of segments
+ * within the field, is still asked for its preferred size, which it caches
+ * in turn. The cache is thrown away when a component is added or removed,
+ * when the font, visibility or size of a child changes, or when
+ * {@link #invalidateCache()} is called, which the field does when the look
+ * and feel changes. Revalidating a time field is then a handful of reference
+ * comparisons.
+ *
+ * Changing the text of a separator or the columns of a segment is not
+ * noticed, call {@link #invalidateCache()} afterwards.
+ */
+public class SegmentLayout implements LayoutManager {
+
+	// The widest digit of each font, only used on the EDT
+	private static final Map<Font, Integer> DIGIT_WIDTHS = new WeakHashMap<>();
+
+	// The state of the children when they were measured
+	private Component[] measured;
+	private Font[] fonts;
+	private boolean[] visible;
+	private int[] widths;
+	private int[] heights;
+	private int rowHeight;
+	private Dimension preferredSize;
+
+	/**
+	 * Throws away the measurements, the children are measured again the next
+	 * time the container is laid out
+	 */
+	public void invalidateCache() {
+		preferredSize = null;
+	}
+
+	@Override
+	public void addLayoutComponent(String name, Component comp) {
+		invalidateCache();
+	}
+
+	@Override
+	public void removeLayoutComponent(Component comp) {
+		invalidateCache();
+	}
+
+	@Override
+	public Dimension preferredLayoutSize(Container parent) {
+		measure(parent);
+		Insets insets = parent.getInsets();
+		return new Dimension(preferredSize.width + insets.left + insets.right,
+						preferredSize.height + insets.top + insets.bottom);
+	}
+
+	@Override
+	public Dimension minimumLayoutSize(Container parent) {
+		return preferredLayoutSize(parent);
+	}
+
+	@Override
+	public void layoutContainer(Container parent) {
+		measure(parent);
+		Insets insets = parent.getInsets();
+		int width = parent.getWidth() - insets.left - insets.right;
+		int height = parent.getHeight() - insets.top - insets.bottom;
+		int x = insets.left + Math.max(0, (width - preferredSize.width) / 2);
+		int y = insets.top + Math.max(0, (height - rowHeight) / 2);
+		for (int index = 0; index < measured.length; index++) {
+			measured[index].setBounds(x, y, widths[index], rowHeight);
+			x += widths[index];
+		}
+	}
+
+	/**
+	 * Measures the children, unless the cached measurements still hold
+	 */
+	private void measure(Container parent) {
+		if (preferredSize != null && isCacheValid(parent)) {
+			return;
+		}
+		int count = parent.getComponentCount();
+		measured = new Component[count];
+		fonts = new Font[count];
+		visible = new boolean[count];
+		widths = new int[count];
+		heights = new int[count];
+		rowHeight = 0;
+		int rowWidth = 0;
+		for (int index = 0; index < count; index++) {
+			Component child = parent.getComponent(index);
+			measured[index] = child;
+			fonts[index] = child.getFont();
+			visible[index] = child.isVisible();
+			if (!visible[index]) {
+				continue;
+			}
+			Dimension size = measure(child);
+			widths[index] = size.width;
+			heights[index] = size.height;
+			rowWidth += size.width;
+			rowHeight = Math.max(rowHeight, size.height);
+		}
+		preferredSize = new Dimension(rowWidth, rowHeight);
+	}
+
+	private boolean isCacheValid(Container parent) {
+		int count = parent.getComponentCount();
+		if (count != measured.length) {
+			return false;
+		}
+		for (int index = 0; index < count; index++) {
+			Component child = parent.getComponent(index);
+			if (child != measured[index] || child.getFont() != fonts[index] || child.isVisible() != visible[index]) {
+				return false;
+			}
+			if (visible[index] && !isMeasuredFromFont(child)) {
+				Dimension size = child.getPreferredSize();
+				if (size.width != widths[index] || size.height != heights[index]) {
+					return false;
+				}
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Returns the size of a child, text fields are sized to hold their columns
+	 * of the widest digit, plus the caret
+	 */
+	private static Dimension measure(Component child) {
+		if (!isMeasuredFromFont(child)) {
+			return child.getPreferredSize();
+		}
+		Font font = child.getFont();
+		FontMetrics fm = child.getFontMetrics(font);
+		Insets insets = ((JComponent) child).getInsets();
+		int width;
+		if (child instanceof JTextField) {
+			width = ((JTextField) child).getColumns() * getDigitWidth(font, fm) + 1;
+		} else {
+			String text = ((JLabel) child).getText();
+			width = text == null ? 0 : fm.stringWidth(text);
+		}
+		return new Dimension(width + insets.left + insets.right, fm.getHeight() + insets.top + insets.bottom);
+	}
+
+	private static boolean isMeasuredFromFont(Component child) {
+		return (child instanceof JTextField || child instanceof JLabel) && child.getFont() != null;
+	}
+
+	/**
+	 * Returns the width of the widest digit of the font
+	 *
+	 * @param font
+	 * @param fm
+	 * @return
+	 */
+	static int getDigitWidth(Font font, FontMetrics fm) {
+		Integer width = DIGIT_WIDTHS.get(font);
+		if (width == null) {
+			int widest = 0;
+			for (char digit = '0'; digit <= '9'; digit++) {
+				widest = Math.max(widest, fm.charWidth(digit));
+			}
+			width = widest;
+			DIGIT_WIDTHS.put(font, width);
+		}
+		return width;
+	}
+
+}
@@ -0,0 +1,252 @@
+package org.kaizen.ui;
+
+import org.kaizen.ui.SegmentValidator.SegmentType;
+
+/**
+ * Describes a single segment of a time field, how many digits it holds, the
+ * range of its value, how much of the time value one unit of the segment is
+ * worth and how it is separated from the segment before it.
+ *
+ * A field is described by an array of specs, from the most to the least
+ * significant segment, which {@link AbstractTimeField} interprets
+ * generically, so adding a segment is a matter of adding a spec rather than
+ * writing another text field, filter and set of key bindings.
+ *
+ * Specs are immutable, the common segments are provided as constants, which
+ * can be adjusted with {@link #withSeparator(char)} and
+ * {@link #withAdvanceKey(char)}.
+ */
+public final class SegmentSpec {
+
+	/**
+	 * Used for a separator or advance key when there is none
+	 */
+	public static final char NONE = '\0';
+
+	public static final long NANOS_PER_MILLI = TimeValueModel.NANOS_PER_MILLI;
+	public static final long NANOS_PER_SECOND = 1000L * NANOS_PER_MILLI;
+
+	/**
+	 * Hour of the day, 0-23
+	 */
+	public static final SegmentSpec HOUR = new SegmentSpec(SegmentType.HOUR, 2, 2, 2, 0, 23,
+					TimeValueModel.MILLIS_PER_HOUR * NANOS_PER_MILLI, NONE, ':', false);
+	/**
+	 * Minute of the hour, 0-59, a single digit is the "tens" of the minute
+	 */
+	public static final SegmentSpec MINUTE = new SegmentSpec(SegmentType.MINUTE, 2, 2, 2, 0, 59,
+					TimeValueModel.MILLIS_PER_MINUTE * NANOS_PER_MILLI, ':', NONE, true);
+	/**
+	 * Second of the minute, 0-59
+	 */
+	public static final SegmentSpec SECOND = new SegmentSpec(SegmentType.SECOND, 2, 2, 2, 0, 59,
+					NANOS_PER_SECOND, '.', NONE, false);
+	/**
+	 * Any number of hours, the leading segment of a duration
+	 */
+	public static final SegmentSpec DURATION_HOUR = new SegmentSpec(SegmentType.DURATION_HOUR, -1, 3, 4, 0, Integer.MAX_VALUE,
+					TimeValueModel.MILLIS_PER_HOUR * NANOS_PER_MILLI, NONE, ':', false);
+	/**
+	 * Any number of days, the leading segment of a duration
+	 */
+	public static final SegmentSpec DAY = new SegmentSpec(SegmentType.DAY, -1, 1, 3, 0, Integer.MAX_VALUE,
+					TimeValueModel.MILLIS_PER_DAY * NANOS_PER_MILLI, NONE, 'd', false);
+	/**
+	 * Millisecond of the second, 0-999, partial values are the leading digits
+	 * of the fraction
+	 */
+	public static final SegmentSpec MILLISECOND = new SegmentSpec(SegmentType.MILLISECOND, 3, 3, 3, 0, 999,
+					NANOS_PER_MILLI, ',', NONE, true);
+	/**
+	 * Microsecond of the second, 0-999,999
+	 */
+	public static final SegmentSpec MICROSECOND = new SegmentSpec(SegmentType.MICROSECOND, 6, 6, 6, 0, 999999,
+					1000, ',', NONE, true);
+	/**
+	 * Nanosecond of the second, 0-999,999,999
+	 */
+	public static final SegmentSpec NANOSECOND = new SegmentSpec(SegmentType.NANOSECOND, 9, 9, 9, 0, 999999999,
+					1, ',', NONE, true);
+
+	private final SegmentType type;
+	private final int width;
+	private final int padding;
+	private final int columns;
+	private final int minimum;
+	private final int maximum;
+	private final long weight;
+	private final char separator;
+	private final char advanceKey;
+	private final boolean leadingDigits;
+
+	/**
+	 * Creates a new segment spec
+	 *
+	 * @param type The type of segment, used to validate each keystroke
+	 * @param width The number of digits the segment holds, or -1 if it is
+	 * unconstrained. Focus moves on once a fixed width segment is full
+	 * @param padding The minimum number of digits displayed
+	 * @param columns The number of columns of the text field
+	 * @param minimum The smallest value of the segment
+	 * @param maximum The largest value of the segment. Unless it is
+	 * Integer.MAX_VALUE, the segment holds the value modulo maximum + 1
+	 * @param weight The number of nanoseconds one unit of the segment is
+	 * worth. Weights finer than a millisecond must divide a second and are
+	 * taken from the fraction of the second
+	 * @param separator The character displayed before the segment, ignored
+	 * for the first segment
+	 * @param advanceKey The character which moves focus on to the next
+	 * segment, or {@link #NONE}
+	 * @param leadingDigits If true, a partially entered value holds the
+	 * leading digits of the segment, so "5" becomes "50" when focus leaves a
+	 * minute segment, otherwise it is padded with leading zeros
+	 */
+	public SegmentSpec(SegmentType type, int width, int padding, int columns, int minimum, int maximum,
+					long weight, char separator, char advanceKey, boolean leadingDigits) {
+		if (type == null) {
+			throw new IllegalArgumentException("Segment type can not be null");
+		}
+		if (minimum < 0 || maximum < minimum) {
+			throw new IllegalArgumentException("Invalid segment range " + minimum + "-" + maximum);
+		}
+		if (weight <= 0 || (weight < NANOS_PER_MILLI ? NANOS_PER_SECOND % weight != 0 : weight % NANOS_PER_MILLI != 0)) {
+			throw new IllegalArgumentException("Invalid segment weight " + weight);
+		}
+		this.type = type;
+		this.width = width;
+		this.padding = padding;
+		this.columns = columns;
+		this.minimum = minimum;
+		this.maximum = maximum;
+		this.weight = weight;
+		this.separator = separator;
+		this.advanceKey = advanceKey;
+		this.leadingDigits = leadingDigits;
+	}
+
+	public SegmentType getType() {
+		return type;
+	}
+
+	/**
+	 * Returns the number of digits the segment holds, or -1 if it is
+	 * unconstrained
+	 *
+	 * @return
+	 */
+	public int getWidth() {
+		return width;
+	}
+
+	public int getPadding() {
+		return padding;
+	}
+
+	public int getColumns() {
+		return columns;
+	}
+
+	public int getMinimum() {
+		return minimum;
+	}
+
+	public int getMaximum() {
+		return maximum;
+	}
+
+	/**
+	 * Returns true if the segment wraps at maximum + 1, false if it holds
+	 * every unit of the value, as the leading segment of a duration does
+	 *
+	 * @return
+	 */
+	public boolean isBounded() {
+		return maximum != Integer.MAX_VALUE;
+	}
+
+	/**
+	 * Returns the number of nanoseconds one unit of the segment is worth
+	 *
+	 * @return
+	 */
+	public long getWeight() {
+		return weight;
+	}
+
+	/**
+	 * Returns true if the weight is finer than a millisecond
+	 *
+	 * @return
+	 */
+	public boolean isFractional() {
+		return weight < NANOS_PER_MILLI;
+	}
+
+	public char getSeparator() {
+		return separator;
+	}
+
+	public char getAdvanceKey() {
+		return advanceKey;
+	}
+
+	public boolean isLeadingDigits() {
+		return leadingDigits;
+	}
+
+	/**
+	 * Returns true if the value lies within the range of the segment
+	 *
+	 * @param value
+	 * @return
+	 */
+	public boolean accepts(long value) {
+		return value >= minimum && value <= maximum;
+	}
+
+	/**
+	 * Returns the value of the segment for a time value
+	 *
+	 * @param millis
+	 * @param nanoOfMillisecond
+	 * @return
+	 */
+	public int valueOf(long millis, int nanoOfMillisecond) {
+		long value;
+		if (isFractional()) {
+			value = (millis % TimeValueModel.MILLIS_PER_SECOND * NANOS_PER_MILLI + nanoOfMillisecond) / weight;
+		} else {
+			value = millis / (weight / NANOS_PER_MILLI);
+		}
+		if (isBounded()) {
+			value %= maximum + 1L;
+		}
+		return (int) Math.min(value, Integer.MAX_VALUE);
+	}
+
+	/**
+	 * Returns a copy of this spec with a different separator
+	 *
+	 * @param value
+	 * @return
+	 */
+	public SegmentSpec withSeparator(char value) {
+		return new SegmentSpec(type, width, padding, columns, minimum, maximum, weight, value, advanceKey, leadingDigits);
+	}
+
+	/**
+	 * Returns a copy of this spec with a different advance key
+	 *
+	 * @param value
+	 * @return
+	 */
+	public SegmentSpec withAdvanceKey(char value) {
+		return new SegmentSpec(type, width, padding, columns, minimum, maximum, weight, separator, value, leadingDigits);
+	}
+
+	@Override
+	public String toString() {
+		return "SegmentSpec[" + type + ", width=" + width + ", " + minimum + "-" + maximum + ", weight=" + weight + "ns]";
+	}
+
+}
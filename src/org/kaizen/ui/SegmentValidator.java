@@ -0,0 +1,328 @@
+package org.kaizen.ui;
+
+import javax.swing.text.BadLocationException;
+import javax.swing.text.Document;
+import javax.swing.text.Segment;
+
+/**
+ * Table driven validation of the keystrokes entered into the individual time
+ * segments.
+ *
+ * The rules for each segment (hours &lt; 24 for 24 hour clocks, minutes &lt; 60,
+ * etc), as given by {@link TimeParser#maximumValue}, are pre-computed into a
+ * table of allowed digits, keyed by the segment
+ * type, the clock mode, the edit offset and the digit preceding the edit
+ * position. Checking a keystroke is then a single array lookup, which neither
+ * allocates nor throws, so rejecting a non-digit costs the same as accepting a
+ * digit.
+ *
+ * The table only sees the digit before the edit position, so a digit typed in
+ * front of existing digits is also checked against the value the segment
+ * would hold afterwards, see {@link #acceptsValue}.
+ */
+public final class SegmentValidator {
+
+	/**
+	 * Returned by {@link #parseValue} when the text is not acceptable
+	 */
+	public static final int INVALID = -1;
+
+	/**
+	 * Used as the "preceding digit" when there is no digit before the edit
+	 * position
+	 */
+	public static final int NO_DIGIT = -1;
+
+	/**
+	 * The types of segment which can be validated
+	 */
+	public enum SegmentType {
+
+		/**
+		 * Hour of the day, 0-12 or 0-23 depending on the clock
+		 */
+		HOUR(2, 23),
+		/**
+		 * Minute of the hour, 0-59
+		 */
+		MINUTE(2, 59),
+		/**
+		 * Second of the minute, 0-59
+		 */
+		SECOND(2, 59),
+		/**
+		 * The unconstrained hour segment of a duration
+		 */
+		DURATION_HOUR(-1, Integer.MAX_VALUE),
+		/**
+		 * The unconstrained day segment of a duration
+		 */
+		DAY(-1, Integer.MAX_VALUE),
+		/**
+		 * Millisecond of the second, 0-999
+		 */
+		MILLISECOND(3, 999),
+		/**
+		 * Microsecond of the second, 0-999,999
+		 */
+		MICROSECOND(6, 999999),
+		/**
+		 * Nanosecond of the second, 0-999,999,999
+		 */
+		NANOSECOND(9, 999999999);
+
+		private final int width;
+		private final int maximum;
+
+		private SegmentType(int width, int maximum) {
+			this.width = width;
+			this.maximum = maximum;
+		}
+
+		/**
+		 * Returns the maximum number of digits this segment can hold, or -1
+		 * if the segment is unconstrained
+		 *
+		 * @return
+		 */
+		public int getWidth() {
+			return width;
+		}
+
+		/**
+		 * Returns the largest value which will be accepted when a value is
+		 * entered in a single step (ie pasted or set programmatically)
+		 *
+		 * @return
+		 */
+		public int getMaximum() {
+			return maximum;
+		}
+	}
+
+	// Offsets 0, 1 and "anything after that"
+	private static final int OFFSETS = 3;
+	// NO_DIGIT plus 0-9
+	private static final int PREVIOUS = 11;
+	private static final int ALL_DIGITS = 0x3FF;
+
+	private static final short[] TABLE;
+
+	static {
+		SegmentType[] types = SegmentType.values();
+		TABLE = new short[types.length * 2 * OFFSETS * PREVIOUS];
+		for (SegmentType type : types) {
+			for (int clock = 0; clock < 2; clock++) {
+				for (int offset = 0; offset < OFFSETS; offset++) {
+					for (int previous = NO_DIGIT; previous <= 9; previous++) {
+						TABLE[index(type, clock == 1, offset, previous)] = (short) allowedDigits(type, clock == 1, offset, previous);
+					}
+				}
+			}
+		}
+	}
+
+	private SegmentValidator() {
+	}
+
+	private static int index(SegmentType type, boolean use24HourClock, int offset, int previousDigit) {
+		return ((type.ordinal() * 2 + (use24HourClock ? 1 : 0)) * OFFSETS + offset) * PREVIOUS + previousDigit + 1;
+	}
+
+	/**
+	 * Calculates the bit mask of the digits which can be entered at the given
+	 * position. A digit is allowed if the smallest value of a full segment
+	 * starting with it is in range, so "3" can't start the hour of a 24 hour
+	 * clock, as 30 is too large. This is only used to build the lookup table.
+	 */
+	private static int allowedDigits(SegmentType type, boolean use24HourClock, int offset, int previousDigit) {
+		int width = type.getWidth();
+		if (width <= 0) {
+			// Any number of hours or days
+			return ALL_DIGITS;
+		}
+		if (offset >= width) {
+			return 0;
+		}
+		if (offset >= OFFSETS - 1 || (offset == 1 && previousDigit == NO_DIGIT)) {
+			// The leading digits aren't known, the value is checked once the
+			// digit is entered
+			return ALL_DIGITS;
+		}
+		long scale = 1;
+		for (int digit = offset + 1; digit < width; digit++) {
+			scale *= 10;
+		}
+		int leading = offset == 1 ? previousDigit * 10 : 0;
+		int mask = 0;
+		for (int digit = 0; digit <= 9; digit++) {
+			if (acceptsValue(type, use24HourClock, (leading + digit) * scale)) {
+				mask |= 1 << digit;
+			}
+		}
+		return mask;
+	}
+
+	/**
+	 * Returns true if the character can be typed at the given offset of the
+	 * segment
+	 *
+	 * @param type The type of segment been edited
+	 * @param use24HourClock The clock mode of the field
+	 * @param offset The edit position within the segment
+	 * @param previousDigit The digit before the edit position or
+	 * {@link #NO_DIGIT}
+	 * @param c The character been typed
+	 * @return
+	 */
+	public static boolean accepts(SegmentType type, boolean use24HourClock, int offset, int previousDigit, char c) {
+		int digit = c - '0';
+		if (digit < 0 || digit > 9 || offset < 0 || previousDigit < NO_DIGIT || previousDigit > 9) {
+			return false;
+		}
+		if (offset >= OFFSETS) {
+			offset = OFFSETS - 1;
+		}
+		return (TABLE[index(type, use24HourClock, offset, previousDigit)] & (1 << digit)) != 0;
+	}
+
+	/**
+	 * Returns true if a segment of the given type can hold the value, the
+	 * same range {@link TimeParser} applies
+	 *
+	 * @param type The type of segment been edited
+	 * @param use24HourClock The clock mode of the field
+	 * @param value The value the segment would hold
+	 * @return
+	 */
+	public static boolean acceptsValue(SegmentType type, boolean use24HourClock, long value) {
+		return value >= 0 && value <= TimeParser.maximumValue(type, use24HourClock);
+	}
+
+	/**
+	 * Parses the value of text which is been entered in a single step, for
+	 * example when the text of the field is set programmatically. The value is
+	 * parsed by {@link TimeParser#parseSegment}.
+	 *
+	 * Fixed width segments only consider the leading characters which will fit
+	 * within the segment. Hours above 12 are not acceptable on a 12 hour
+	 * clock.
+	 *
+	 * @param type The type of segment been edited
+	 * @param use24HourClock The clock mode of the field
+	 * @param text The text been entered
+	 * @param offset The edit position within the segment
+	 * @return The value or {@link #INVALID} if the text is not acceptable
+	 */
+	public static int parseValue(SegmentType type, boolean use24HourClock, CharSequence text, int offset) {
+		if (type.getWidth() > 0 && offset != 0) {
+			return INVALID;
+		}
+		int value = TimeParser.parseSegment(type, use24HourClock, text, 0, text.length());
+		return TimeParser.isError(value) ? INVALID : value;
+	}
+
+	/**
+	 * Returns the digit immediately before the offset within the document, or
+	 * {@link #NO_DIGIT} if there isn't one. The supplied segment is used to
+	 * read the document without allocating a String.
+	 *
+	 * @param document
+	 * @param offset
+	 * @param buffer
+	 * @return
+	 * @throws BadLocationException
+	 */
+	static int digitBefore(Document document, int offset, Segment buffer) throws BadLocationException {
+		if (offset <= 0 || offset > document.getLength()) {
+			return NO_DIGIT;
+		}
+		document.getText(offset - 1, 1, buffer);
+		int digit = buffer.first() - '0';
+		return digit >= 0 && digit <= 9 ? digit : NO_DIGIT;
+	}
+
+	/**
+	 * Returns the value the document would hold once the text has replaced
+	 * length characters at the offset. Values past Integer.MAX_VALUE are
+	 * capped just beyond it, so they are still out of range. The supplied
+	 * segment is used to read the document without allocating a String.
+	 *
+	 * @param document
+	 * @param offset
+	 * @param length
+	 * @param text The digits been entered
+	 * @param buffer
+	 * @return
+	 * @throws BadLocationException
+	 */
+	static long valueAfter(Document document, int offset, int length, CharSequence text, Segment buffer) throws BadLocationException {
+		document.getText(0, document.getLength(), buffer);
+		long value = 0;
+		for (int index = 0; index <= buffer.count; index++) {
+			if (index == offset) {
+				for (int charIndex = 0; charIndex < text.length(); charIndex++) {
+					value = appendDigit(value, text.charAt(charIndex));
+				}
+			}
+			if (index < buffer.count && (index < offset || index >= offset + length)) {
+				value = appendDigit(value, buffer.array[buffer.offset + index]);
+			}
+		}
+		return value;
+	}
+
+	/**
+	 * Returns the value the digits would hold once the character has been
+	 * inserted at the offset
+	 *
+	 * @param digits
+	 * @param length The number of digits held
+	 * @param offset
+	 * @param c The digit been entered
+	 * @return
+	 */
+	static long valueAfter(char[] digits, int length, int offset, char c) {
+		long value = 0;
+		for (int index = 0; index <= length; index++) {
+			if (index == offset) {
+				value = appendDigit(value, c);
+			}
+			if (index < length) {
+				value = appendDigit(value, digits[index]);
+			}
+		}
+		return value;
+	}
+
+	private static long appendDigit(long value, char c) {
+		int digit = c - '0';
+		if (digit < 0 || digit > 9) {
+			return value;
+		}
+		return Math.min(value * 10 + digit, Integer.MAX_VALUE + 1L);
+	}
+
+	/**
+	 * Returns the value of the digits held by the document, an empty document
+	 * has a value of 0. Values which would overflow an int are capped at
+	 * Integer.MAX_VALUE. The supplied segment is used to read the document
+	 * without allocating a String.
+	 *
+	 * @param document
+	 * @param buffer
+	 * @return
+	 * @throws BadLocationException
+	 */
+	static int valueOf(Document document, Segment buffer) throws BadLocationException {
+		document.getText(0, document.getLength(), buffer);
+		long value = 0;
+		for (char c = buffer.first(); c != Segment.DONE; c = buffer.next()) {
+			int digit = c - '0';
+			if (digit >= 0 && digit <= 9) {
+				value = Math.min(value * 10 + digit, Integer.MAX_VALUE);
+			}
+		}
+		return (int) value;
+	}
+}
@@ -0,0 +1,720 @@
+package org.kaizen.ui;
+
+import java.awt.AWTEvent;
+import java.awt.Color;
+import java.awt.Component;
+import java.awt.Dimension;
+import java.awt.FontMetrics;
+import java.awt.Graphics;
+import java.awt.Insets;
+import java.awt.event.ActionEvent;
+import java.awt.event.FocusEvent;
+import java.awt.event.InputEvent;
+import java.awt.event.KeyEvent;
+import java.awt.event.MouseEvent;
+import javax.swing.AbstractAction;
+import javax.swing.ActionMap;
+import javax.swing.InputMap;
+import javax.swing.JComponent;
+import javax.swing.KeyStroke;
+import javax.swing.SwingUtilities;
+import javax.swing.plaf.UIResource;
+import org.kaizen.ui.TimeField.TimeOfDay;
+import org.kaizen.ui.TimeFieldTracer.Reason;
+
+/**
+ * The editor of a time field implemented as a single component.
+ *
+ * Where a field would otherwise build a panel of text fields and labels, this
+ * editor paints all of the field's segments itself and handles the keyboard
+ * directly, so there is only one component, one caret and one paint pass per
+ * field. The segments are described by the field's {@link SegmentSpec}s and
+ * follow the same rules as the text fields, keystrokes are validated with
+ * {@link SegmentValidator} against the field's clock and digit limits, each
+ * edit is passed on to the field's model, entering a full segment or its
+ * advance key moves on to the next one, the arrow keys and tab move between
+ * segments and leaving a partially entered segment pads it.
+ *
+ * The editor is created by a field which
+ * {@link AbstractTimeField#isSingleComponentEditor() uses one}. In 12 hour mode
+ * a TimeField's time of day is painted after the last segment and can be
+ * selected like any other segment. The key bindings and actions are shared by
+ * every editor.
+ */
+public class SegmentedTimeEditor extends JComponent {
+
+	// The most digits an unconstrained segment can hold without overflowing
+	private static final int MAX_DIGITS = 9;
+	// Enough to display any segment value
+	private static final int BUFFER_SIZE = 10;
+	private static final String AM = "am";
+	private static final String PM = "pm";
+
+	private static final InputMap EDITOR_BINDINGS = createEditorBindings();
+	private static final ActionMap EDITOR_ACTIONS = createEditorActions();
+
+	private final AbstractTimeField field;
+	// The digits of each segment, as entered or set from the model
+	private final char[][] digits;
+	private final int[] lengths;
+
+	// The segment been edited, the time of day follows the last segment
+	private int segment;
+	// The caret position within the segment
+	private int caret;
+	// When the segment is selected, the next digit replaces its contents
+	private boolean selected = true;
+	// The segment which was clicked on before the editor had focus
+	private int pressedSegment = -1;
+
+	private Color selectionBackground;
+	private Color selectionForeground;
+	private Color caretColor;
+	private Color inactiveForeground;
+
+	/**
+	 * Creates the editor of the field's segments
+	 *
+	 * @param field
+	 */
+	public SegmentedTimeEditor(AbstractTimeField field) {
+		this.field = field;
+		int count = field.getSegmentSpecs().length;
+		digits = new char[count][BUFFER_SIZE];
+		lengths = new int[count];
+
+		setFocusable(true);
+		setOpaque(true);
+		// Tab moves between the segments
+		setFocusTraversalKeysEnabled(false);
+		setInputMap(WHEN_FOCUSED, EDITOR_BINDINGS);
+		setActionMap(EDITOR_ACTIONS);
+		addFocusListener(field.getSegmentFocusHandler());
+		enableEvents(AWTEvent.KEY_EVENT_MASK | AWTEvent.MOUSE_EVENT_MASK | AWTEvent.FOCUS_EVENT_MASK);
+		updateUI();
+		for (int index = 0; index < count; index++) {
+			setDigits(index, field.getSegmentValue(index), field.getSegmentPadding(index));
+		}
+	}
+
+	@Override
+	public void updateUI() {
+		TimeFieldStyle style = TimeFieldStyle.getInstance();
+		setBorder(style.getSegmentBorder());
+		setBackground(style.getBackground());
+		// Only replace the values which came from the previous look and feel
+		if (!isFontSet() || getFont() instanceof UIResource) {
+			setFont(style.getFont());
+		}
+		if (!isForegroundSet() || getForeground() instanceof UIResource) {
+			setForeground(style.getForeground());
+		}
+		selectionBackground = style.getSelectionBackground();
+		selectionForeground = style.getSelectionForeground();
+		caretColor = style.getCaretForeground();
+		inactiveForeground = style.getInactiveForeground();
+	}
+
+	/**
+	 * Returns the field the editor belongs to
+	 *
+	 * @return
+	 */
+	public AbstractTimeField getField() {
+		return field;
+	}
+
+	/**
+	 * Returns the segment which is been edited, the time of day of a 12 hour
+	 * TimeField follows the last segment
+	 *
+	 * @return
+	 */
+	public int getSelectedSegment() {
+		return segment;
+	}
+
+	/**
+	 * Returns true if every segment holds a complete value, that is, the fixed
+	 * width segments are full and the variable width segments are not empty
+	 *
+	 * @return
+	 */
+	public boolean isEditValid() {
+		for (int index = 0; index < lengths.length; index++) {
+			int width = field.getSegmentSpec(index).getWidth();
+			if (lengths[index] == 0 || (width > 0 && lengths[index] < width)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Sets the value of a segment and passes it on to the field's model,
+	 * values outside the range of the segment are ignored
+	 *
+	 * @param index
+	 * @param value
+	 */
+	protected void setSegmentValue(int index, int value) {
+		if (!field.getSegmentSpec(index).accepts(value)) {
+			return;
+		}
+		setDigits(index, value, field.getSegmentPadding(index));
+		if (index == segment) {
+			caret = Math.min(caret, lengths[index]);
+		}
+		field.updateModel(index, value);
+		repaint();
+	}
+
+	protected boolean isShowingTimeOfDay() {
+		return field instanceof TimeField && !field.is24HourClock();
+	}
+
+	/**
+	 * Returns the number of segments which can be selected, including the time
+	 * of day
+	 */
+	private int getSegmentCount() {
+		return lengths.length + (isShowingTimeOfDay() ? 1 : 0);
+	}
+
+	private boolean isTimeOfDay(int index) {
+		return index >= lengths.length;
+	}
+
+	private int getLength(int index) {
+		return isTimeOfDay(index) ? 0 : lengths[index];
+	}
+
+	private int getMaximumDigits(int index) {
+		int maximum = field.getMaximumDigits(index);
+		return maximum > 0 ? Math.min(maximum, MAX_DIGITS) : MAX_DIGITS;
+	}
+
+	/**
+	 * Writes the value into the segment, padded with leading zeros
+	 */
+	private void setDigits(int index, int value, int width) {
+		char[] buffer = digits[index];
+		int start = SegmentFormat.format(value, width, buffer);
+		int length = buffer.length - start;
+		System.arraycopy(buffer, start, buffer, 0, length);
+		lengths[index] = length;
+	}
+
+	/**
+	 * Returns the value of the digits entered into the segment
+	 */
+	private int getDigitsValue(int index) {
+		long value = 0;
+		for (int offset = 0; offset < lengths[index]; offset++) {
+			value = Math.min(value * 10 + digits[index][offset] - '0', Integer.MAX_VALUE);
+		}
+		return (int) value;
+	}
+
+	/**
+	 * Pads a partially entered segment, the same as the text fields do when
+	 * they lose focus. Segments which hold leading digits are filled out to the
+	 * right, others are padded with leading zeros
+	 *
+	 * @param index
+	 */
+	protected void commitSegment(int index) {
+		if (isTimeOfDay(index)) {
+			return;
+		}
+		int padding = field.getSegmentPadding(index);
+		if (lengths[index] < padding) {
+			int value = field.getSegmentValue(index);
+			if (field.getSegmentSpec(index).isLeadingDigits()) {
+				for (int digit = lengths[index]; digit < padding; digit++) {
+					value *= 10;
+				}
+			}
+			setSegmentValue(index, value);
+		}
+	}
+
+	protected void selectSegment(int index) {
+		if (index != segment) {
+			commitSegment(segment);
+			segment = index;
+		}
+		selected = true;
+		caret = getLength(segment);
+		repaint();
+	}
+
+	/**
+	 * Focuses the editor and selects the segment at the given x position
+	 *
+	 * @param x
+	 */
+	protected void focusSegmentAt(int x) {
+		int index = segmentAt(x);
+		if (isFocusOwner()) {
+			selectSegment(index);
+		} else {
+			pressedSegment = index;
+			requestFocusInWindow();
+		}
+	}
+
+	/**
+	 * Moves to the next segment, once the last segment is complete the field
+	 * is told the user has completed it
+	 */
+	protected void moveToNextSegment() {
+		if (segment < getSegmentCount() - 1) {
+			selectSegment(segment + 1);
+		} else {
+			commitSegment(segment);
+			field.lastFieldCompleted();
+		}
+	}
+
+	/**
+	 * Applies a typed digit to the current segment, if it passes validation
+	 */
+	protected void typeDigit(char c) {
+		if (isTimeOfDay(segment)) {
+			return;
+		}
+		SegmentSpec spec = field.getSegmentSpec(segment);
+		int length = selected ? 0 : lengths[segment];
+		int offset = selected ? 0 : caret;
+		Reason reason;
+		if (length >= getMaximumDigits(segment)) {
+			reason = Reason.TOO_LONG;
+		} else {
+			int previous = offset > 0 ? digits[segment][offset - 1] - '0' : SegmentValidator.NO_DIGIT;
+			if (!SegmentValidator.accepts(spec.getType(), field.is24HourClock(), offset, previous, c)) {
+				reason = Reason.INVALID_CHARACTER;
+			} else if (!SegmentValidator.acceptsValue(spec.getType(), field.is24HourClock(),
+							SegmentValidator.valueAfter(digits[segment], length, offset, c))) {
+				// A digit typed in front of the existing digits
+				reason = Reason.INVALID_VALUE;
+			} else {
+				reason = Reason.ACCEPTED;
+			}
+		}
+		// The single digit strings are cached, so this doesn't allocate
+		field.getTracer().filtered(field, spec.getType(), offset, SegmentFormat.pad(c - '0', 1), reason);
+		if (!reason.isAccepted()) {
+			return;
+		}
+		char[] buffer = digits[segment];
+		System.arraycopy(buffer, offset, buffer, offset + 1, length - offset);
+		buffer[offset] = c;
+		lengths[segment] = length + 1;
+		caret = offset + 1;
+		selected = false;
+		field.updateModel(segment, getDigitsValue(segment));
+		repaint();
+		// Only fixed width segments move on automatically
+		if (spec.getWidth() > 0 && lengths[segment] >= spec.getWidth()) {
+			moveToNextSegment();
+		}
+	}
+
+	protected void deleteBackward() {
+		if (isTimeOfDay(segment)) {
+			selectSegment(segment - 1);
+			return;
+		}
+		if (selected) {
+			lengths[segment] = 0;
+			caret = 0;
+			selected = false;
+		} else if (caret > 0) {
+			char[] buffer = digits[segment];
+			System.arraycopy(buffer, caret, buffer, caret - 1, lengths[segment] - caret);
+			lengths[segment]--;
+			caret--;
+		}
+		field.updateModel(segment, getDigitsValue(segment));
+		repaint();
+	}
+
+	protected void deleteForward() {
+		if (isTimeOfDay(segment)) {
+			return;
+		}
+		if (selected) {
+			deleteBackward();
+		} else if (caret < lengths[segment]) {
+			char[] buffer = digits[segment];
+			System.arraycopy(buffer, caret + 1, buffer, caret, lengths[segment] - caret - 1);
+			lengths[segment]--;
+			field.updateModel(segment, getDigitsValue(segment));
+			repaint();
+		}
+	}
+
+	/**
+	 * Moves the caret right, or on to the next segment from the end of a
+	 * segment, the same as the arrow keys of the text fields
+	 */
+	protected void moveRight() {
+		int length = getLength(segment);
+		int position = selected ? length : caret;
+		if (position >= length && segment < getSegmentCount() - 1) {
+			selectSegment(segment + 1);
+		} else if (position < length) {
+			selected = false;
+			caret = position + 1;
+			repaint();
+		}
+	}
+
+	/**
+	 * Moves the caret left, or back to the previous segment from the start of
+	 * a segment, the same as the arrow keys of the text fields
+	 */
+	protected void moveLeft() {
+		int position = selected ? getLength(segment) : caret;
+		if (position <= 1 && segment > 0) {
+			selectSegment(segment - 1);
+		} else if (position > 0) {
+			selected = false;
+			caret = position - 1;
+			repaint();
+		}
+	}
+
+	/**
+	 * Moves the caret to the start or end of the segment
+	 */
+	protected void moveCaret(boolean toEnd) {
+		selected = false;
+		caret = toEnd ? getLength(segment) : 0;
+		repaint();
+	}
+
+	/**
+	 * Tab moves between the segments and out of the field past the first or
+	 * last segment
+	 */
+	protected void traverse(boolean forward) {
+		if (forward && segment < getSegmentCount() - 1) {
+			selectSegment(segment + 1);
+		} else if (!forward && segment > 0) {
+			selectSegment(segment - 1);
+		} else {
+			commitSegment(segment);
+			if (forward) {
+				field.transferFocus();
+			} else {
+				field.transferFocusBackward();
+			}
+		}
+	}
+
+	/**
+	 * Sets the time of day of a 12 hour TimeField, or toggles it if no time of
+	 * day is given
+	 */
+	protected void changeTimeOfDay(TimeOfDay value) {
+		if (!isShowingTimeOfDay()) {
+			return;
+		}
+		TimeField timeField = (TimeField) field;
+		if (value == null) {
+			value = timeField.getTimeOfDay() == TimeOfDay.AM ? TimeOfDay.PM : TimeOfDay.AM;
+		}
+		timeField.setTimeOfDay(value);
+		repaint();
+	}
+
+	@Override
+	protected void processKeyEvent(KeyEvent e) {
+		// The listeners and key bindings come first, as they do for a text field
+		super.processKeyEvent(e);
+		if (e.isConsumed() || e.getID() != KeyEvent.KEY_TYPED || !isEnabled()) {
+			return;
+		}
+		// Typed characters aren't bound, the keys which move the caret are
+		if ((e.getModifiersEx() & (InputEvent.CTRL_DOWN_MASK | InputEvent.ALT_DOWN_MASK | InputEvent.META_DOWN_MASK)) != 0) {
+			return;
+		}
+		char c = e.getKeyChar();
+		if (c >= '0' && c <= '9') {
+			typeDigit(c);
+		} else if (!isTimeOfDay(segment) && c != SegmentSpec.NONE && c == field.getSegmentSpec(segment).getAdvanceKey()) {
+			moveToNextSegment();
+		} else if (c == 'a' || c == 'A') {
+			changeTimeOfDay(TimeOfDay.AM);
+		} else if (c == 'p' || c == 'P') {
+			changeTimeOfDay(TimeOfDay.PM);
+		}
+		e.consume();
+	}
+
+	@Override
+	protected void processMouseEvent(MouseEvent e) {
+		super.processMouseEvent(e);
+		if (e.getID() == MouseEvent.MOUSE_PRESSED && isEnabled()) {
+			int index = segmentAt(e.getX());
+			// A click on the focused time of day toggles it
+			if (isFocusOwner() && isTimeOfDay(index) && segment == index) {
+				changeTimeOfDay(null);
+			} else {
+				focusSegmentAt(e.getX());
+			}
+		}
+	}
+
+	@Override
+	protected void processFocusEvent(FocusEvent e) {
+		super.processFocusEvent(e);
+		if (e.getID() == FocusEvent.FOCUS_LOST && !e.isTemporary()) {
+			commitSegment(segment);
+		} else if (e.getID() == FocusEvent.FOCUS_GAINED) {
+			Component opposite = e.getOppositeComponent();
+			if (pressedSegment != -1) {
+				segment = pressedSegment;
+			} else if (!e.isTemporary() && (opposite == null || !SwingUtilities.isDescendingFrom(opposite, field))) {
+				// Focus arriving from outside the field starts at the first
+				// segment
+				segment = 0;
+			}
+			pressedSegment = -1;
+		}
+		selected = true;
+		caret = getLength(segment);
+		repaint();
+	}
+
+	/**
+	 * Returns the width of a segment, its columns of the widest digit plus the
+	 * caret, the same as the text fields
+	 */
+	private int getSegmentWidth(int index, int digitWidth) {
+		return field.getSegmentSpec(index).getColumns() * digitWidth + 1;
+	}
+
+	private int getSeparatorWidth(int index, FontMetrics fm) {
+		char separator = field.getSegmentSpec(index).getSeparator();
+		return index > 0 && separator != SegmentSpec.NONE ? fm.charWidth(separator) : 0;
+	}
+
+	private int getTimeOfDayWidth(FontMetrics fm) {
+		// Leave a space between the last segment and the time of day
+		return fm.charWidth(' ') + Math.max(fm.stringWidth(AM), fm.stringWidth(PM));
+	}
+
+	/**
+	 * Returns the segment at the given x position
+	 *
+	 * @param x
+	 * @return
+	 */
+	protected int segmentAt(int x) {
+		FontMetrics fm = getFontMetrics(getFont());
+		int digitWidth = SegmentLayout.getDigitWidth(getFont(), fm);
+		int position = getInsets().left;
+		for (int index = 0; index < lengths.length; index++) {
+			position += getSeparatorWidth(index, fm) + getSegmentWidth(index, digitWidth);
+			if (x < position) {
+				return index;
+			}
+		}
+		return getSegmentCount() - 1;
+	}
+
+	@Override
+	public Dimension getPreferredSize() {
+		if (isPreferredSizeSet()) {
+			return super.getPreferredSize();
+		}
+		FontMetrics fm = getFontMetrics(getFont());
+		int digitWidth = SegmentLayout.getDigitWidth(getFont(), fm);
+		Insets insets = getInsets();
+		int width = insets.left + insets.right;
+		for (int index = 0; index < lengths.length; index++) {
+			width += getSeparatorWidth(index, fm) + getSegmentWidth(index, digitWidth);
+		}
+		if (isShowingTimeOfDay()) {
+			width += getTimeOfDayWidth(fm);
+		}
+		return new Dimension(width, fm.getHeight() + insets.top + insets.bottom);
+	}
+
+	@Override
+	public Dimension getMinimumSize() {
+		return getPreferredSize();
+	}
+
+	@Override
+	protected void paintComponent(Graphics g) {
+		if (isOpaque()) {
+			g.setColor(getBackground());
+			g.fillRect(0, 0, getWidth(), getHeight());
+		}
+		g.setFont(getFont());
+		FontMetrics fm = g.getFontMetrics();
+		int digitWidth = SegmentLayout.getDigitWidth(getFont(), fm);
+		Insets insets = getInsets();
+		int height = getHeight() - insets.top - insets.bottom;
+		int top = insets.top + (height - fm.getHeight()) / 2;
+		int y = top + fm.getAscent();
+		int x = insets.left;
+		boolean focused = isFocusOwner();
+		Color foreground = isEnabled() || inactiveForeground == null ? getForeground() : inactiveForeground;
+		for (int index = 0; index < lengths.length; index++) {
+			int separatorWidth = getSeparatorWidth(index, fm);
+			if (separatorWidth > 0) {
+				g.setColor(foreground);
+				g.drawString(String.valueOf(field.getSegmentSpec(index).getSeparator()), x, y);
+				x += separatorWidth;
+			}
+			int segmentWidth = getSegmentWidth(index, digitWidth);
+			int length = lengths[index];
+			int textWidth = fm.charsWidth(digits[index], 0, length);
+			// Right aligned, leaving room for the caret
+			int textX = x + segmentWidth - 1 - textWidth;
+			boolean current = focused && index == segment;
+			if (current && selected && length > 0 && selectionBackground != null) {
+				g.setColor(selectionBackground);
+				g.fillRect(textX, top, textWidth, fm.getHeight());
+				g.setColor(selectionForeground != null ? selectionForeground : foreground);
+			} else {
+				g.setColor(foreground);
+			}
+			g.drawChars(digits[index], 0, length, textX, y);
+			if (current && !selected) {
+				int caretX = textX + fm.charsWidth(digits[index], 0, caret);
+				g.setColor(caretColor != null ? caretColor : foreground);
+				g.drawLine(caretX, top, caretX, top + fm.getHeight() - 1);
+			}
+			x += segmentWidth;
+		}
+		if (isShowingTimeOfDay()) {
+			String text = ((TimeField) field).getTimeOfDay() == TimeOfDay.PM ? PM : AM;
+			int width = fm.stringWidth(text);
+			int textX = x + getTimeOfDayWidth(fm) - width;
+			if (focused && isTimeOfDay(segment) && selectionBackground != null) {
+				g.setColor(selectionBackground);
+				g.fillRect(textX, top, width, fm.getHeight());
+				g.setColor(selectionForeground != null ? selectionForeground : foreground);
+			} else {
+				g.setColor(foreground);
+			}
+			g.drawString(text, textX, y);
+		}
+	}
+
+	private static InputMap createEditorBindings() {
+		InputMap map = new InputMap();
+		map.put(KeyStroke.getKeyStroke(KeyEvent.VK_TAB, 0), "nextSegment");
+		map.put(KeyStroke.getKeyStroke(KeyEvent.VK_TAB, InputEvent.SHIFT_DOWN_MASK), "previousSegment");
+		map.put(KeyStroke.getKeyStroke(KeyEvent.VK_RIGHT, 0), "afterSegmentArrow");
+		map.put(KeyStroke.getKeyStroke(KeyEvent.VK_KP_RIGHT, 0), "afterSegmentArrow");
+		map.put(KeyStroke.getKeyStroke(KeyEvent.VK_NUMPAD6, 0), "afterSegmentKeyPad");
+		map.put(KeyStroke.getKeyStroke(KeyEvent.VK_LEFT, 0), "beforeSegmentArrow");
+		map.put(KeyStroke.getKeyStroke(KeyEvent.VK_KP_LEFT, 0), "beforeSegmentArrow");
+		map.put(KeyStroke.getKeyStroke(KeyEvent.VK_NUMPAD4, 0), "beforeSegmentKeyPad");
+		map.put(KeyStroke.getKeyStroke(KeyEvent.VK_HOME, 0), "caretStart");
+		map.put(KeyStroke.getKeyStroke(KeyEvent.VK_END, 0), "caretEnd");
+		map.put(KeyStroke.getKeyStroke(KeyEvent.VK_BACK_SPACE, 0), "deleteBackward");
+		map.put(KeyStroke.getKeyStroke(KeyEvent.VK_DELETE, 0), "deleteForward");
+		map.put(KeyStroke.getKeyStroke(KeyEvent.VK_UP, 0), "toggleTimeOfDay");
+		map.put(KeyStroke.getKeyStroke(KeyEvent.VK_KP_UP, 0), "toggleTimeOfDay");
+		map.put(KeyStroke.getKeyStroke(KeyEvent.VK_DOWN, 0), "toggleTimeOfDay");
+		map.put(KeyStroke.getKeyStroke(KeyEvent.VK_KP_DOWN, 0), "toggleTimeOfDay");
+		map.put(KeyStroke.getKeyStroke(KeyEvent.VK_ENTER, 0), "commit");
+		return map;
+	}
+
+	private static ActionMap createEditorActions() {
+		ActionMap map = new ActionMap();
+		for (String name : new String[]{"nextSegment", "previousSegment", "afterSegmentArrow", "afterSegmentKeyPad",
+			"beforeSegmentArrow", "beforeSegmentKeyPad", "caretStart", "caretEnd", "deleteBackward", "deleteForward",
+			"toggleTimeOfDay", "commit"}) {
+			map.put(name, new EditorAction(name));
+		}
+		return map;
+	}
+
+	/**
+	 * Performs one of the bound actions on the editor
+	 *
+	 * @param name
+	 * @param e
+	 */
+	protected void performAction(String name, ActionEvent e) {
+		switch (name) {
+			case "nextSegment":
+				traverse(true);
+				break;
+			case "previousSegment":
+				traverse(false);
+				break;
+			case "afterSegmentArrow":
+				moveRight();
+				break;
+			case "afterSegmentKeyPad":
+				if (!LockingKeyTracker.isNumLockOn()) {
+					moveRight();
+				}
+				break;
+			case "beforeSegmentArrow":
+				moveLeft();
+				break;
+			case "beforeSegmentKeyPad":
+				if (!LockingKeyTracker.isNumLockOn()) {
+					moveLeft();
+				}
+				break;
+			case "caretStart":
+				moveCaret(false);
+				break;
+			case "caretEnd":
+				moveCaret(true);
+				break;
+			case "deleteBackward":
+				deleteBackward();
+				break;
+			case "deleteForward":
+				deleteForward();
+				break;
+			case "toggleTimeOfDay":
+				if (isTimeOfDay(segment)) {
+					changeTimeOfDay(null);
+				}
+				break;
+			case "commit":
+				// The same as the enter key of the text segments
+				field.getActionHandler().actionPerformed(e);
+				break;
+			default:
+				break;
+		}
+	}
+
+	/**
+	 * Finds the editor from the source of the event, so a single instance of
+	 * each action serves every editor
+	 */
+	private static class EditorAction extends AbstractAction {
+
+		public EditorAction(String name) {
+			super(name);
+		}
+
+		@Override
+		public void actionPerformed(ActionEvent e) {
+			if (e.getSource() instanceof SegmentedTimeEditor) {
+				SegmentedTimeEditor editor = (SegmentedTimeEditor) e.getSource();
+				if (editor.isEnabled()) {
+					editor.performAction((String) getValue(NAME), e);
+				}
+			}
+		}
+	}
+
+}
@@ -0,0 +1,129 @@
+package org.kaizen.ui;
+
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.util.Calendar;
+import java.util.Date;
+
+/**
+ * Renders time of day values in the same format as {@link TimeField}, without
+ * the need to create a TimeField for each cell.
+ *
+ * Supports Date, Calendar, LocalTime and Number values, where numbers are the
+ * number of milliseconds since the start of the day. Dates are shown in the
+ * renderer's zone, which should be the zone of the {@link TimeField} editing
+ * the cells, Calendars in their own zone.
+ */
+public class TimeCellRenderer extends AbstractTimeCellRenderer {
+
+	private static final int HOUR = 0;
+	private static final int MINUTE = 1;
+
+	private static final long MILLIS_PER_DAY = 24 * TimeValueModel.MILLIS_PER_HOUR;
+
+	private boolean use24HourClock;
+	private boolean pm;
+	private ZoneId zone;
+	private ZoneOffsetCache offsets;
+
+	public TimeCellRenderer() {
+		this(false);
+	}
+
+	public TimeCellRenderer(boolean use24HourClock) {
+		super(2);
+		this.use24HourClock = use24HourClock;
+		setZone(ZoneId.systemDefault());
+	}
+
+	public boolean is24HourClock() {
+		return use24HourClock;
+	}
+
+	public void set24HourClock(boolean value) {
+		use24HourClock = value;
+	}
+
+	/**
+	 * Returns the time zone Dates are shown in
+	 *
+	 * @return
+	 */
+	public ZoneId getZone() {
+		return zone;
+	}
+
+	/**
+	 * Sets the time zone Dates are shown in. This defaults to the system time
+	 * zone when the renderer is created
+	 *
+	 * @param value
+	 */
+	public void setZone(ZoneId value) {
+		if (value == null) {
+			throw new IllegalArgumentException("Zone can not be null");
+		}
+		zone = value;
+		offsets = ZoneOffsetCache.forZone(value);
+	}
+
+	@Override
+	protected int getSegmentColumns(int segment) {
+		return 2;
+	}
+
+	@Override
+	protected int getSegmentPadding(int segment) {
+		return 2;
+	}
+
+	@Override
+	protected char getSeparatorBefore(int segment) {
+		return ':';
+	}
+
+	@Override
+	protected String getSuffix() {
+		if (use24HourClock) {
+			return null;
+		}
+		return pm ? "pm" : "am";
+	}
+
+	@Override
+	protected boolean setSegmentValues(Object value, int[] segments) {
+		int hour;
+		int minute;
+		if (value instanceof Date) {
+			long millis = TimeField.toMillisOfDay(((Date) value).getTime(), offsets);
+			hour = (int) (millis / TimeValueModel.MILLIS_PER_HOUR);
+			minute = (int) (millis / TimeValueModel.MILLIS_PER_MINUTE % 60);
+		} else if (value instanceof Calendar) {
+			Calendar calendar = (Calendar) value;
+			hour = calendar.get(Calendar.HOUR_OF_DAY);
+			minute = calendar.get(Calendar.MINUTE);
+		} else if (value instanceof LocalTime) {
+			LocalTime time = (LocalTime) value;
+			hour = time.getHour();
+			minute = time.getMinute();
+		} else if (value instanceof Number) {
+			long millis = Math.floorMod(((Number) value).longValue(), MILLIS_PER_DAY);
+			hour = (int) (millis / TimeValueModel.MILLIS_PER_HOUR);
+			minute = (int) (millis / TimeValueModel.MILLIS_PER_MINUTE % 60);
+		} else {
+			return false;
+		}
+		// Follows the same rules as TimeField, midnight and noon are 12
+		pm = hour >= 12;
+		if (!use24HourClock) {
+			hour %= 12;
+			if (hour == 0) {
+				hour = 12;
+			}
+		}
+		segments[HOUR] = hour;
+		segments[MINUTE] = minute;
+		return true;
+	}
+
+}
@@ -1,46 +1,57 @@
 package org.kaizen.ui;
 
-import java.awt.Toolkit;
+import java.awt.AWTEvent;
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.FontMetrics;
+import java.awt.Graphics;
+import java.awt.Insets;
 import java.awt.event.ActionEvent;
-import java.awt.event.ActionListener;
-import java.awt.event.FocusAdapter;
 import java.awt.event.FocusEvent;
-import java.awt.event.KeyAdapter;
 import java.awt.event.KeyEvent;
+import java.awt.event.MouseEvent;
+import java.time.Instant;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Calendar;
-import java.util.Collections;
 import java.util.Date;
 import java.util.List;
-import javax.swing.JComboBox;
+import javax.swing.AbstractAction;
+import javax.swing.ActionMap;
+import javax.swing.InputMap;
+import javax.swing.JComponent;
 import javax.swing.JTextField;
-import javax.swing.UIManager;
-import javax.swing.border.CompoundBorder;
-import javax.swing.border.EmptyBorder;
-import javax.swing.text.AbstractDocument;
-import javax.swing.text.AttributeSet;
-import javax.swing.text.BadLocationException;
-import javax.swing.text.DocumentFilter;
+import javax.swing.KeyStroke;
+import javax.swing.plaf.UIResource;
+import org.kaizen.ui.SegmentValidator.SegmentType;
 
 /**
- * Proto type of a time based field.
- * 
+ * A time of day field.
+ *
  * The user should get real time validation based on the configuration of the field
- * and the values they are entering (hours &gt; 0 and &lt; 23 for 24 clocks, 
+ * and the values they are entering (hours &gt; 0 and &lt; 23 for 24 clocks,
  * &gt; 0 &lt; 13 for 12 hour clocks, minutes &gt;= 0 and &lt; 60, etc)
- * 
+ *
  * The field should also provide easy navigation, including automatically moving
  * to the next time component, tab, keyboard arrows and separators (ie ":" between
  * the hours an minutes)
- * 
+ *
  * The intention is to make it as fast as possible for the user to enter values
- * 
- * This is the original prototype and should be update to use the AbstractTimeField
- * 
+ *
+ * The model holds the time as milliseconds since the start of the day. In 12
+ * hour mode the hour segment displays 1-12 and the time of day is shown by a
+ * painted am/pm segment, which takes part in the segment focus order. Typing
+ * "a" or "p", or pressing up or down, changes the time of day.
+ *
  * Consideration should also be given to allow it to display seconds and
  * milliseconds, including the localised separators
  */
-public class TimeField extends javax.swing.JPanel {
+public class TimeField extends AbstractTimeField {
+
+  private static final int MILLIS_PER_MINUTE = 60 * 1000;
+  private static final int MILLIS_PER_HOUR = 60 * MILLIS_PER_MINUTE;
+  private static final long MILLIS_PER_DAY = 24L * MILLIS_PER_HOUR;
 
   // The time of day...
   public enum TimeOfDay {
@@ -48,69 +59,80 @@ public class TimeField extends javax.swing.JPanel {
     AM,
     PM
   }
-  private HourDocumentFilter hourDocumentFilter;
-  private MinuteDocumentFilter minDocumentFilter;
-  private HourKeyHandler hourKeyHandler;
-  private MinuteKeyHandler minuteKeyHandler;
-  private HourFocusHandler hourFocusHandler;
-  private MinuteFocusHandler minuteFocusHandler;
+
+  // The key bindings and actions of the time of day segment, shared by every
+  // field
+  private static final InputMap TIME_OF_DAY_BINDINGS = createTimeOfDayBindings();
+  private static final ActionMap TIME_OF_DAY_ACTIONS = createTimeOfDayActions();
+
+  // The placeholder renderers of each clock mode, only ever used on the EDT
+  private static AbstractTimeCellRenderer placeholderRenderer12;
+  private static AbstractTimeCellRenderer placeholderRenderer24;
+
+  // Neither is given an initial value, both are used from within the super
+  // constructor
   private boolean use24HourClock;
-  private ActionHandler actionHandler;
+  private TimeOfDaySegment timeOfDaySegment;
+  private ZoneId zone = ZoneId.systemDefault();
+  // The half of the day shown by the time of day segment, the hour segment
+  // is entered within it. Kept apart from the model, which holds partially
+  // entered hours while the user is typing
+  private TimeOfDay timeOfDay = TimeOfDay.AM;
 
   /**
    * Creates new form TimeField
    */
   public TimeField() {
-    initComponents();
-    pnlFields.setBorder(new CompoundBorder(UIManager.getBorder("TextField.border"),new EmptyBorder(0, 2, 0, 2)));
+    this(false, false);
+  }
 
-    set24HourClock(false);
-    setTime(new Date());
-    fldHour.addKeyListener(new HourKeyHandler());
+  /**
+   * Creates a new time field, set to the current time
+   *
+   * @param lazy If true, the editor is not created until the user first
+   * focuses or clicks on the field
+   */
+  public TimeField(boolean lazy) {
+    this(lazy, false);
   }
 
-  @Override
-  public void addNotify() {
-    super.addNotify();
-    // Add all the required functionality to make this thing work...
-    ((AbstractDocument) fldHour.getDocument()).setDocumentFilter(getHourDocumentFilter());
-    ((AbstractDocument) fldMin.getDocument()).setDocumentFilter(getMinuteDocumentFilter());
-    fldHour.addFocusListener(getHourFocusHandler());
-    fldMin.addFocusListener(getMinuteFocusHandler());
-    fldHour.addKeyListener(getHourKeyHandler());
-    fldMin.addKeyListener(getMinuteKeyHandler());
-    fldHour.addActionListener(getActionHandler());
-    fldMin.addActionListener(getActionHandler());
-    cmbTimeOfDay.addActionListener(getActionHandler());
+  /**
+   * Creates a new time field, set to the current time
+   *
+   * @param lazy If true, the editor is not created until the user first
+   * focuses or clicks on the field
+   * @param singleComponentEditor If true, the segments and the time of day are
+   * edited by a single {@link SegmentedTimeEditor}
+   */
+  public TimeField(boolean lazy, boolean singleComponentEditor) {
+    super(lazy, singleComponentEditor);
+    setTime(new Date());
   }
 
   @Override
-  public void removeNotify() {
-    // Clean up our listeners...
-    ((AbstractDocument) fldHour.getDocument()).setDocumentFilter(null);
-    ((AbstractDocument) fldMin.getDocument()).setDocumentFilter(null);
-    fldHour.removeFocusListener(getHourFocusHandler());
-    fldMin.removeFocusListener(getMinuteFocusHandler());
-    fldHour.removeKeyListener(getHourKeyHandler());
-    fldMin.removeKeyListener(getMinuteKeyHandler());
-    fldHour.removeActionListener(getActionHandler());
-    fldMin.removeActionListener(getActionHandler());
-    cmbTimeOfDay.removeActionListener(getActionHandler());
-    super.removeNotify();
+  protected SegmentSpec[] createSegmentSpecs() {
+    return new SegmentSpec[]{SegmentSpec.HOUR, SegmentSpec.MINUTE};
   }
 
-  /**
-   * Adds an action listener to the component. Actions are fired when the user
-   * presses the enter key
-   *
-   * @param listener
-   */
-  public void addActionListener(ActionListener listener) {
-    listenerList.add(ActionListener.class, listener);
+  @Override
+  protected JComponent[] getTimeFields() {
+    JComponent[] fields = super.getTimeFields();
+    if (is24HourClock()) {
+      return fields;
+    }
+    fields = Arrays.copyOf(fields, fields.length + 1);
+    fields[fields.length - 1] = getTimeOfDayEditor();
+    return fields;
   }
 
-  public void removeActionListener(ActionListener listener) {
-    listenerList.remove(ActionListener.class, listener);
+  @Override
+  protected List<JComponent> initFocusTransveralOrder() {
+    List<JComponent> focusOrder = new ArrayList<>(super.initFocusTransveralOrder());
+    // The single component editor paints the time of day itself
+    if (!is24HourClock() && !isSingleComponentEditor()) {
+      focusOrder.add(getTimeOfDayEditor());
+    }
+    return focusOrder;
   }
 
   /**
@@ -119,7 +141,7 @@ public class TimeField extends javax.swing.JPanel {
    * @return
    */
   public JTextField getHourEditor() {
-    return fldHour;
+    return getHourField();
   }
 
   /**
@@ -128,123 +150,170 @@ public class TimeField extends javax.swing.JPanel {
    * @return
    */
   public JTextField getMinuteEditor() {
-    return fldMin;
+    return getMinuteField();
   }
 
   /**
-   * Returns the combo box that provides the time of day selection
+   * Returns the segment that displays the time of day. It is only part of the
+   * editor when the field uses a 12 hour clock
    *
    * @return
    */
-  public JComboBox getTimeOfDayEditor() {
-    return cmbTimeOfDay;
+  public JComponent getTimeOfDayEditor() {
+    if (timeOfDaySegment == null) {
+      timeOfDaySegment = new TimeOfDaySegment(this);
+    }
+    return timeOfDaySegment;
   }
 
   /**
-   * Returns the internal action handler. This handler monitors actions on the
-   * individual components and merges them into one.
+   * Returns the time zone used to convert dates and instants to a time of day
    *
    * @return
    */
-  protected ActionHandler getActionHandler() {
-    if (actionHandler == null) {
-      actionHandler = new ActionHandler();
-    }
-    return actionHandler;
+  public ZoneId getZone() {
+    return zone;
   }
 
   /**
-   * Returns the hour key listener
+   * Sets the time zone used to convert dates and instants to a time of day.
+   * This defaults to the system time zone when the field is created
    *
-   * @return
+   * @param value
    */
-  protected HourKeyHandler getHourKeyHandler() {
-    if (hourKeyHandler == null) {
-      hourKeyHandler = new HourKeyHandler();
+  public void setZone(ZoneId value) {
+    if (value == null) {
+      throw new IllegalArgumentException("Zone can not be null");
     }
-    return hourKeyHandler;
+    ZoneId old = zone;
+    zone = value;
+    firePropertyChange("zone", old, value);
   }
 
   /**
-   * Returns the minute key listener
+   * Sets the time based on the supplied date, in the field's time zone
    *
-   * @return
+   * @param date
    */
-  protected MinuteKeyHandler getMinuteKeyHandler() {
-    if (minuteKeyHandler == null) {
-      minuteKeyHandler = new MinuteKeyHandler();
-    }
-    return minuteKeyHandler;
+  public void setTime(Date date) {
+    setTime(date.getTime());
   }
 
   /**
-   * Returns the document filter used to filter the hour field
+   * Sets the time based on the supplied number of milliseconds since the
+   * epoch, in the field's time zone
    *
-   * @return
+   * @param epochMillis
    */
-  protected DocumentFilter getHourDocumentFilter() {
-    if (hourDocumentFilter == null) {
-      hourDocumentFilter = new HourDocumentFilter();
-    }
-    return hourDocumentFilter;
+  public void setTime(long epochMillis) {
+    setTime(epochMillis, ZoneOffsetCache.forZone(getZone()));
   }
 
   /**
-   * Returns the document filter user to filter the minute field
+   * Sets the time based on the supplied instant in the given time zone
    *
-   * @return
+   * @param instant
+   * @param zone
    */
-  protected DocumentFilter getMinuteDocumentFilter() {
-    if (minDocumentFilter == null) {
-      minDocumentFilter = new MinuteDocumentFilter();
-    }
-    return minDocumentFilter;
+  public void setTime(Instant instant, ZoneId zone) {
+    long epochMillis = instant.getEpochSecond() * 1000L + instant.getNano() / 1000000;
+    setTime(epochMillis, ZoneOffsetCache.forZone(zone));
   }
 
   /**
-   * Returns the focus listener used to monitor the hour field
+   * Sets the time based on the supplied local time
    *
-   * @return
+   * @param time
+   */
+  public void setTime(LocalTime time) {
+    setTimeOfDay(time.getHour(), time.getMinute());
+  }
+
+  private void setTime(long epochMillis, ZoneOffsetCache offsets) {
+    // The seconds are dropped by setValue
+    setValue(toMillisOfDay(epochMillis, offsets));
+  }
+
+  /**
+   * Returns the time of day, in milliseconds, of the epoch time in the zone
+   * of the offsets
+   */
+  static long toMillisOfDay(long epochMillis, ZoneOffsetCache offsets) {
+    long localMillis = epochMillis + offsets.getOffsetSeconds(epochMillis) * 1000L;
+    return Math.floorMod(localMillis, MILLIS_PER_DAY);
+  }
+
+  /**
+   * The placeholder of a lazy field is painted in the field's clock mode
    */
-  protected HourFocusHandler getHourFocusHandler() {
-    if (hourFocusHandler == null) {
-      hourFocusHandler = new HourFocusHandler();
+  @Override
+  protected AbstractTimeCellRenderer getPlaceholderRenderer() {
+    if (is24HourClock()) {
+      if (placeholderRenderer24 == null) {
+        placeholderRenderer24 = new TimeCellRenderer(true);
+        placeholderRenderer24.setOpaque(false);
+      }
+      return placeholderRenderer24;
+    }
+    if (placeholderRenderer12 == null) {
+      placeholderRenderer12 = new TimeCellRenderer(false);
+      placeholderRenderer12.setOpaque(false);
     }
-    return hourFocusHandler;
+    return placeholderRenderer12;
   }
 
   /**
-   * Used the focus listener used to monitor the minute field
-   *
-   * @return
+   * A live field shows the current time, in the field's time zone
    */
-  protected MinuteFocusHandler getMinuteFocusHandler() {
-    if (minuteFocusHandler == null) {
-      minuteFocusHandler = new MinuteFocusHandler();
+  @Override
+  protected long getLiveValue(long now) {
+    return toMillisOfDay(now, ZoneOffsetCache.forZone(getZone()));
+  }
+
+  @Override
+  protected void updateValue(long millis) {
+    TimeOfDay old = timeOfDay;
+    millis = Math.floorMod(millis, MILLIS_PER_DAY);
+    // Before the segments are updated, the hour is entered within it
+    timeOfDay = timeOfDayOf(millis);
+    super.updateValue(millis);
+    if (timeOfDaySegment != null && timeOfDay != old) {
+      timeOfDaySegment.repaint();
     }
-    return minuteFocusHandler;
   }
 
   /**
-   * Sets the time based on the supplied date
+   * Sets the time of day, in milliseconds since the start of the day. Values
+   * of a day or more, or negative values, wrap around to a time of day, so
+   * a day and an hour is 1am
    *
-   * @param date
+   * @param millis
+   * @param nanoOfMillisecond
    */
-  public void setTime(Date date) {
-    Calendar cal = Calendar.getInstance();
-    cal.setTime(date);
-    int hour = cal.get(Calendar.HOUR);
-    int min = cal.get(Calendar.MINUTE);
-    int dayPart = cal.get(Calendar.AM_PM);
-
-    TimeOfDay timeOfDay = TimeOfDay.AM;
-    switch (dayPart) {
-      case Calendar.PM:
-        timeOfDay = TimeOfDay.PM;
-        break;
-    }
+  @Override
+  public void setValue(long millis, int nanoOfMillisecond) {
+    millis = Math.floorMod(millis, MILLIS_PER_DAY);
+    // Before the segments are updated, the hour is entered within it
+    timeOfDay = timeOfDayOf(millis);
+    super.setValue(millis, nanoOfMillisecond);
+  }
 
-    setTime(hour, min, timeOfDay);
+  /**
+   * Any value can be posted, negative values wrap around like any other
+   */
+  @Override
+  protected void checkPostedValue(long millis) {
+  }
+
+  private static TimeOfDay timeOfDayOf(long millisOfDay) {
+    return millisOfDay >= 12L * MILLIS_PER_HOUR ? TimeOfDay.PM : TimeOfDay.AM;
+  }
+
+  /**
+   * Sets the time from an hour of the day (0-23)
+   */
+  private void setTimeOfDay(int hourOfDay, int min) {
+    setValue(hourOfDay * (long) MILLIS_PER_HOUR + min * (long) MILLIS_PER_MINUTE);
   }
 
   /**
@@ -256,45 +325,24 @@ public class TimeField extends javax.swing.JPanel {
    * @param min
    */
   public void setTime(int hour, int min) {
-    hour = correctHour(hour);
-    min = correctMinute(min);
-
-    TimeOfDay timeOfDay = TimeOfDay.AM;
-    if (hour >= 12) {
-      timeOfDay = TimeOfDay.PM;
-    }
-
-    setTime(hour, min, timeOfDay);
+    setTimeOfDay(correctHour(hour), correctMinute(min));
   }
 
   /**
    * Corrects the minute value to make sure it is within allowable ranges.
    *
    * For example, if you pass in 90 the method, it will automatically correct
-   * the value to 30, discard the overflow.
+   * the value to 30, discard the overflow. Negative values wrap around, so -1
+   * becomes 59.
    *
-   * This will not effect the hour value...although this might be worth
-   * consideration in the future
+   * This will not effect the hour value, use
+   * {@link TimeNormalizer#minuteOfDay(int, int)} to carry the overflow
    *
    * @param min
    * @return
    */
   protected int correctMinute(int min) {
-    // Make sure the value is positive.
-    // If we were interested in altering the hour value as well, we wouldn't
-    // want to do this...
-    if (min < 0) {
-      min += (min * -2);
-    }
-
-    // Correct the minute value....
-    if (min > 59) {
-      // How many hours fit into this value
-      float part = min / 60f;
-      part = (float) (part - Math.floor(part)); // Get remainder
-      min = (int) (60 * part); // Calculate the number of minutes...
-    }
-    return min;
+    return TimeNormalizer.wrapMinute(min);
   }
 
   /**
@@ -304,87 +352,66 @@ public class TimeField extends javax.swing.JPanel {
    * We are basically going to try and figure out how many parts of the day that
    * the hour falls in and make it equal to a single day...
    *
-   * That is, if the hour is 35, it's actually 1.458... days, which is roughly 1
-   * day and 11 hours. We are only interested in the 11 hours, cause the date is
-   * irrelevant to us
+   * That is, if the hour is 35, it's actually 1 day and 11 hours. We are only
+   * interested in the 11 hours, cause the date is irrelevant to us. Negative
+   * values wrap around, so -1 becomes 23.
    *
    * @param hour
    * @return
    */
   protected int correctHour(int hour) {
-    if (hour < 0) {
-      hour += (hour * -2);
-    }
-
-    if (hour > 23) {
-      float part = hour / 24f;
-      part = (float) (part - Math.floor(part));
-      hour = (int) (24 * part);
-    }
-    return hour;
+    return TimeNormalizer.wrapHour(hour);
   }
 
   /**
-   * Sets the time value for this field...
+   * Sets the time value for this field. The hour is taken within the half of
+   * the day given by the time of day, so 3 and 15 are both 3pm when the time
+   * of day is PM
    *
    * @param hour
    * @param min
    * @param timeOfDay
    */
   public void setTime(int hour, int min, TimeOfDay timeOfDay) {
-    hour = correctHour(hour);
-    min = correctMinute(min);
-
-    // Now that we have a correct hour value, we need to know if it will
-    // actually fit within the correct part of the day...
-
-    switch (timeOfDay) {
-      case AM:
-        cmbTimeOfDay.setSelectedIndex(0);
-        break;
-      case PM:
-        cmbTimeOfDay.setSelectedIndex(1);
-        break;
-    }
-
-    if (!is24HourClock()) {
-      if (hour > 12) {
-        hour -= 12;
-      }
-    } else {
-      if (hour < 12 && timeOfDay.equals(TimeOfDay.PM)) {
-        hour += 12;
-      }
+    hour = correctHour(hour) % 12;
+    if (timeOfDay == TimeOfDay.PM) {
+      hour += 12;
     }
-
-    fldHour.setText(pad(Integer.toString(hour), 2));
-    fldMin.setText(pad(Integer.toString(min), 2));
+    setTimeOfDay(hour, correctMinute(min));
   }
 
-  public int getHour() {
-    return Integer.parseInt(getHourEditor().getText());
+  /**
+   * Sets the hour of the day (0-23), the minutes are unchanged
+   *
+   * @param hour
+   */
+  @Override
+  public void setHour(int hour) {
+    setTimeOfDay(correctHour(hour), getMinute());
   }
 
-  public int getMinute() {
-    return Integer.parseInt(getMinuteEditor().getText());
+  public TimeOfDay getTimeOfDay() {
+    return timeOfDay;
   }
 
-  public TimeOfDay getTimeOfDay() {
-    TimeOfDay tod = null;
-    switch (cmbTimeOfDay.getSelectedIndex()) {
-      case 0:
-        tod = TimeOfDay.AM;
-        break;
-      case 1:
-        tod = TimeOfDay.PM;
-        break;
+  /**
+   * Moves the time into the morning or afternoon, the hour of the morning or
+   * afternoon is unchanged
+   *
+   * @param value
+   */
+  public void setTimeOfDay(TimeOfDay value) {
+    if (value != timeOfDay) {
+      TimeValueModel model = getModel();
+      long shift = value == TimeOfDay.PM ? 12L * MILLIS_PER_HOUR : -12L * MILLIS_PER_HOUR;
+      setValue(model.getMillis() + shift, model.getNanoOfMillisecond());
     }
-    return tod;
   }
 
   /**
    * Sets if we should be using 24 or 12 hour clock. This basically configures
-   * the time of day field and the validation ranges of the various fields
+   * the time of day segment and the validation ranges of the hour segment, the
+   * editor is rebuilt and the time is unchanged
    *
    * @param value
    */
@@ -392,13 +419,10 @@ public class TimeField extends javax.swing.JPanel {
     if (value != use24HourClock) {
 
       use24HourClock = value;
-      cmbTimeOfDay.setVisible(!use24HourClock);
+      setSegmentSpecs(getSegmentSpecs());
 
-      if (cmbTimeOfDay.getSelectedIndex() == 1) {
-        setTime(getHour() + 12, getMinute(), getTimeOfDay());
-      }
-
-      invalidate();
+      revalidate();
+      repaint();
       firePropertyChange("24HourClock", !use24HourClock, value);
     }
   }
@@ -408,415 +432,204 @@ public class TimeField extends javax.swing.JPanel {
    *
    * @return
    */
+  @Override
   public boolean is24HourClock() {
     return use24HourClock;
   }
 
   /**
-   * This method is called from within the constructor to initialize the form.
-   * WARNING: Do NOT modify this code. The content of this method is always
-   * regenerated by the Form Editor.
-   */
-  @SuppressWarnings("unchecked")
-  // <editor-fold defaultstate="collapsed" desc="Generated Code">                          
-  private void initComponents() {
-    java.awt.GridBagConstraints gridBagConstraints;
-
-    cmbTimeOfDay = new javax.swing.JComboBox();
-    pnlFields = new javax.swing.JPanel();
-    lblSeperator = new javax.swing.JLabel();
-    fldHour = new javax.swing.JTextField();
-    fldMin = new javax.swing.JTextField();
-
-    addFocusListener(new java.awt.event.FocusAdapter() {
-      public void focusGained(java.awt.event.FocusEvent evt) {
-        doFocusGained(evt);
-      }
-    });
-    setLayout(new java.awt.GridBagLayout());
-
-    cmbTimeOfDay.setModel(new javax.swing.DefaultComboBoxModel(new String[]{"am", "pm"}));
-    cmbTimeOfDay.setBorder(null);
-    cmbTimeOfDay.setEditor(null);
-    cmbTimeOfDay.setOpaque(false);
-    gridBagConstraints = new java.awt.GridBagConstraints();
-    gridBagConstraints.gridx = 1;
-    gridBagConstraints.gridy = 0;
-    gridBagConstraints.insets = new java.awt.Insets(0, 4, 0, 0);
-    add(cmbTimeOfDay, gridBagConstraints);
-
-    pnlFields.setBackground(new java.awt.Color(255, 255, 255));
-    pnlFields.setLayout(new java.awt.GridBagLayout());
-
-    lblSeperator.setText(":");
-    gridBagConstraints = new java.awt.GridBagConstraints();
-    gridBagConstraints.gridx = 1;
-    gridBagConstraints.gridy = 0;
-    gridBagConstraints.insets = new java.awt.Insets(0, 2, 0, 2);
-    pnlFields.add(lblSeperator, gridBagConstraints);
-
-    fldHour.setBorder(null);
-    fldHour.setColumns(2);
-    gridBagConstraints = new java.awt.GridBagConstraints();
-    gridBagConstraints.gridx = 0;
-    gridBagConstraints.gridy = 0;
-    pnlFields.add(fldHour, gridBagConstraints);
-
-    fldMin.setBorder(null);
-    fldMin.setColumns(2);
-    gridBagConstraints = new java.awt.GridBagConstraints();
-    gridBagConstraints.gridx = 2;
-    gridBagConstraints.gridy = 0;
-    pnlFields.add(fldMin, gridBagConstraints);
-
-    gridBagConstraints = new java.awt.GridBagConstraints();
-    gridBagConstraints.gridx = 0;
-    gridBagConstraints.gridy = 0;
-    add(pnlFields, gridBagConstraints);
-  }// </editor-fold>                        
-
-  private void doFocusGained(java.awt.event.FocusEvent evt) {
-    fldHour.requestFocus();
-  }
-  // Variables declaration - do not modify                     
-  private javax.swing.JComboBox cmbTimeOfDay;
-  private javax.swing.JTextField fldHour;
-  private javax.swing.JTextField fldMin;
-  private javax.swing.JLabel lblSeperator;
-  private javax.swing.JPanel pnlFields;
-  // End of variables declaration                   
-
-  /**
-   * Moves the focus forward to the next field.
-   *
-   * This is used to provide "automatic" focus movement
+   * In 12 hour mode the hour segment displays 1-12
    */
-  protected void moveFocusForward() {
-    if (fldHour.hasFocus()) {
-      fldMin.requestFocus();
-    } else if (fldMin.hasFocus()) {
-      cmbTimeOfDay.requestFocus();
+  @Override
+  protected int getSegmentValue(int index) {
+    int value = super.getSegmentValue(index);
+    if (!is24HourClock() && getSegmentSpec(index).getType() == SegmentType.HOUR) {
+      value %= 12;
+      return value == 0 ? 12 : value;
     }
+    return value;
   }
 
   /**
-   * Moves the focus backwards to the previous field.
-   *
-   * This is used to provide "automatic" focus movement
+   * In 12 hour mode the hour is entered within the time of day shown by the
+   * time of day segment
    */
-  protected void moveFocusBackward() {
-    if (fldMin.hasFocus()) {
-      fldHour.requestFocus();
-    } else if (cmbTimeOfDay.hasFocus()) {
-      fldMin.requestFocus();
+  @Override
+  protected void updateModel(int index, int value) {
+    if (!is24HourClock() && getSegmentSpec(index).getType() == SegmentType.HOUR) {
+      TimeValueModel model = getModel();
+      int hourOfDay = value % 12 + (timeOfDay == TimeOfDay.PM ? 12 : 0);
+      model.setValue(model.getMillis() + (hourOfDay - model.getHour()) * (long) MILLIS_PER_HOUR,
+              model.getNanoOfMillisecond());
+    } else {
+      super.updateModel(index, value);
+      if (is24HourClock()) {
+        // The hour is entered directly, the time of day follows it
+        timeOfDay = timeOfDayOf(getModel().getMillis());
+      }
     }
   }
 
-  /**
-   * Fires the action performed event to all registered listeners
-   *
-   * @param evt
-   */
-  protected void fireActionPerformed(ActionEvent evt) {
-    List<ActionListener> lstListeners = Arrays.asList(listenerList.getListeners(ActionListener.class));
-    if (!lstListeners.isEmpty()) {
-      Collections.reverse(lstListeners);
-      for (ActionListener listener : lstListeners) {
-        listener.actionPerformed(evt);
-      }
+  @Override
+  protected void updateSegments() {
+    super.updateSegments();
+    if (timeOfDaySegment != null) {
+      timeOfDaySegment.repaint();
     }
   }
 
+  private static InputMap createTimeOfDayBindings() {
+    InputMap map = new InputMap();
+    map.put(KeyStroke.getKeyStroke('a'), "am");
+    map.put(KeyStroke.getKeyStroke('A'), "am");
+    map.put(KeyStroke.getKeyStroke('p'), "pm");
+    map.put(KeyStroke.getKeyStroke('P'), "pm");
+    map.put(KeyStroke.getKeyStroke(KeyEvent.VK_UP, 0), "toggleTimeOfDay");
+    map.put(KeyStroke.getKeyStroke(KeyEvent.VK_KP_UP, 0), "toggleTimeOfDay");
+    map.put(KeyStroke.getKeyStroke(KeyEvent.VK_DOWN, 0), "toggleTimeOfDay");
+    map.put(KeyStroke.getKeyStroke(KeyEvent.VK_KP_DOWN, 0), "toggleTimeOfDay");
+    map.put(KeyStroke.getKeyStroke(KeyEvent.VK_LEFT, 0), "toPreviousSegment");
+    map.put(KeyStroke.getKeyStroke(KeyEvent.VK_KP_LEFT, 0), "toPreviousSegment");
+    map.put(KeyStroke.getKeyStroke(KeyEvent.VK_BACK_SPACE, 0), "toPreviousSegment");
+    map.put(KeyStroke.getKeyStroke(KeyEvent.VK_ENTER, 0), "commit");
+    return map;
+  }
+
+  private static ActionMap createTimeOfDayActions() {
+    ActionMap map = new ActionMap();
+    map.put("am", new ChangeTimeOfDay(TimeOfDay.AM));
+    map.put("pm", new ChangeTimeOfDay(TimeOfDay.PM));
+    map.put("toggleTimeOfDay", new ChangeTimeOfDay(null));
+    map.put("toPreviousSegment", new MoveFocusBackward());
+    map.put("commit", new CommitAction());
+    return map;
+  }
+
   /**
-   * Hour key handler, used to monitor "special" keys for the hour field.
-   *
-   * This looks for the user pressing the ":" key and the right arrow key in
-   * order to perform special navigation
+   * Sets the time of day of the field the event came from, or toggles it if
+   * no time of day is given
    */
-  protected class HourKeyHandler extends KeyAdapter {
+  protected static class ChangeTimeOfDay extends AbstractAction {
 
-    @Override
-    public void keyPressed(KeyEvent e) {
-      boolean numLock = false;
-      try {
-        // Get the state of the nums lock
-        numLock = Toolkit.getDefaultToolkit().getLockingKeyState(KeyEvent.VK_NUM_LOCK);
-      } catch (Exception exp) {
-      }
+    private final TimeOfDay timeOfDay;
 
-      // Move focus forward if the user presses the ":"
-      if (e.getKeyCode() == KeyEvent.VK_SEMICOLON && e.isShiftDown()) {
-        moveFocusForward();
-        // Move focus forward if the user pressed the left arrow key
-      } else if ((e.getKeyCode() == KeyEvent.VK_NUMPAD6 && !numLock) || e.getKeyCode() == KeyEvent.VK_RIGHT) {
-        // If we are in the last edit position
-        if (fldHour.getCaretPosition() >= 2) {
-          moveFocusForward();
-          // Or we are in the first edit position and the field only contains a single character
-        } else if (fldHour.getText().trim().length() == 1 && fldHour.getCaretPosition() == 1) {
-          moveFocusForward();
-        }
-      }
+    public ChangeTimeOfDay(TimeOfDay timeOfDay) {
+      this.timeOfDay = timeOfDay;
     }
-  }
-
-  /**
-   * Minute key handler, used to monitor "special" keys for the hour field.
-   *
-   * This looks for the user pressing the left arrow key in order to perform
-   * special navigation
-   */
-  protected class MinuteKeyHandler extends KeyAdapter {
 
     @Override
-    public void keyPressed(KeyEvent e) {
-      boolean numLock = false;
-      try {
-        numLock = Toolkit.getDefaultToolkit().getLockingKeyState(KeyEvent.VK_NUM_LOCK);
-      } catch (Exception exp) {
-      }
-
-      if ((e.getKeyCode() == KeyEvent.VK_NUMPAD4 && !numLock) || e.getKeyCode() == KeyEvent.VK_LEFT) {
-        // Only want to move backwards if we are at the first edit position
-        if (fldMin.getCaretPosition() == 0) {
-          moveFocusBackward();
+    public void actionPerformed(ActionEvent e) {
+      AbstractTimeField owner = getOwner(e.getSource());
+      if (owner instanceof TimeField) {
+        TimeField field = (TimeField) owner;
+        TimeOfDay value = timeOfDay;
+        if (value == null) {
+          value = field.getTimeOfDay() == TimeOfDay.AM ? TimeOfDay.PM : TimeOfDay.AM;
         }
+        field.setTimeOfDay(value);
       }
     }
   }
 
   /**
-   * Hour field focus handler. This watches for focus lost events a
-   * automatically pads the field with a leading "0" if the field is only 1
-   * character in length
+   * Passes the enter key on the time of day segment to the field's action
+   * handler, the same as the enter key of the text segments
    */
-  protected class HourFocusHandler extends FocusAdapter {
+  protected static class CommitAction extends AbstractAction {
 
     @Override
-    public void focusLost(FocusEvent e) {
-      String text = fldHour.getText();
-      if (text.length() < 2) {
-        text = pad(text, 2);
-        fldHour.setText(text);
+    public void actionPerformed(ActionEvent e) {
+      AbstractTimeField owner = getOwner(e.getSource());
+      if (owner != null) {
+        owner.getActionHandler().actionPerformed(e);
       }
     }
   }
 
   /**
-   * Minute field focus handler, watches for focus lost events and automatically
-   * adds a "0" to the end of the field if it is only 1 character in length
+   * Paints "am" or "pm" straight from the value of the field. The segment
+   * holds no value or popup of its own, the key bindings and actions are
+   * shared by all fields
    */
-  protected class MinuteFocusHandler extends FocusAdapter {
+  protected static class TimeOfDaySegment extends JComponent {
 
-    @Override
-    public void focusLost(FocusEvent e) {
-      String text = fldMin.getText();
-      if (text.length() < 2) {
-        fldMin.setText(text + "0");
-      }
-    }
-  }
+    private static final String AM = "am";
+    private static final String PM = "pm";
 
-  /**
-   * The document filter used to filter the hour field.
-   */
-  protected class HourDocumentFilter extends DocumentFilter {
+    private final TimeField field;
 
-    @Override
-    public void insertString(FilterBypass fb, int offset, String text, AttributeSet attr) throws BadLocationException {
-      System.out.println("insert: offset = " + offset + "; text = " + text);
-      super.insertString(fb, offset, text, attr);
+    public TimeOfDaySegment(TimeField field) {
+      this.field = field;
+      setFocusable(true);
+      setInputMap(WHEN_FOCUSED, TIME_OF_DAY_BINDINGS);
+      setActionMap(TIME_OF_DAY_ACTIONS);
+      addFocusListener(field.getSegmentFocusHandler());
+      enableEvents(AWTEvent.MOUSE_EVENT_MASK);
+      updateUI();
     }
 
     @Override
-    public void replace(FilterBypass fb, int offset, int length, String text, AttributeSet attrs) throws BadLocationException {
-
-      try {
-        boolean isAcceptable = false;
-        boolean passOnFocus = false;
-
-        int strLength = text.length();
-        // We convert the value here to make sure it's a number...
-        int value = Integer.parseInt(text);
-
-        // If the length of the string been replaced is only 1 character
-        if (strLength == 1) {
-          // If we are at the start of the editing position
-          if (offset == 0) {
-            // What clock type are we using...
-            if (!is24HourClock()) {
-              // only accept 0 or 1...
-              if (value <= 1) {
-                isAcceptable = true;
-              }
-            } else if (value <= 2) {
-              isAcceptable = true;
-            }
-            // If we are at the second editing position
-          } else if (offset == 1) {
-            // Get the preceeding value, should be 0, 1 or 2
-            String upperPart = fb.getDocument().getText(0, 1);
-            // Convert the value to an int
-            int upperValue = Integer.parseInt(upperPart);
-
-            // The acceptable range of values for the given position
-            int lowerRange = 0;
-            int upperRange = 9;
-
-            // Which clock are we using
-            if (is24HourClock()) {
-              // If the first value is 2, we can only accept values from 0-3 (20-23)
-              if (upperValue == 2) {
-                upperRange = 3;
-              }
-            } else {
-              // 12 hour clock
-              // If the first value is 1, we can only accept values from 0-2 (10-12)
-              if (upperValue == 1) {
-                upperRange = 2;
-              }
-            }
-
-            // Is the value within accpetable range...
-            if (value >= lowerRange && value <= upperRange) {
-              isAcceptable = true;
-            }
-
-            // Pass on focus (only if the value is accepted)
-            passOnFocus = true;
-          }
-        } else {
-          // First, we need to trim the value down to a maximum of 2 characters
-
-          // Need to know at what offest...
-          // 2 - offset..
-          // offset == 0, length = 2 - offset = 2
-          // offset == 1, length = 2 - offset = 1
-          strLength = 2 - offset;
-          String timeText = text.substring(offset, strLength);
-          value = Integer.parseInt(timeText);
-          // this will only work if we are using a 24 hour clock
-          if (value >= 0 && value <= 23) {
-            while (value > 12 && is24HourClock()) {
-              value -= 12;
-            }
-
-            // Pad out the text if required
-            text = pad(value, 2);
-            isAcceptable = true;
-          }
-        }
-
-        if (isAcceptable) {
-          super.replace(fb, offset, length, text, attrs);
-          if (passOnFocus) {
-            moveFocusForward();
-          }
-        }
-      } catch (NumberFormatException exp) {
+    public void updateUI() {
+      // Only replace the values which came from the previous look and feel
+      TimeFieldStyle style = TimeFieldStyle.getInstance();
+      if (!isFontSet() || getFont() instanceof UIResource) {
+        setFont(style.getFont());
+      }
+      if (!isForegroundSet() || getForeground() instanceof UIResource) {
+        setForeground(style.getForeground());
       }
     }
-  }
-
-  /**
-   * The document filter used to filter the minute field.
-   */
-  protected class MinuteDocumentFilter extends DocumentFilter {
 
     @Override
-    public void insertString(FilterBypass fb, int offset, String text, AttributeSet attr) throws BadLocationException {
-      System.out.println("insert: offset = " + offset + "; text = " + text);
-      super.insertString(fb, offset, text, attr);
+    public Dimension getPreferredSize() {
+      if (isPreferredSizeSet()) {
+        return super.getPreferredSize();
+      }
+      FontMetrics fm = getFontMetrics(getFont());
+      Insets insets = getInsets();
+      // Leave a space between the minutes and the time of day
+      int width = fm.charWidth(' ') + Math.max(fm.stringWidth(AM), fm.stringWidth(PM));
+      return new Dimension(width + insets.left + insets.right, fm.getHeight() + insets.top + insets.bottom);
     }
 
     @Override
-    public void replace(FilterBypass fb, int offset, int length, String text, AttributeSet attrs) throws BadLocationException {
-
-      try {
-        boolean isAcceptable = false;
-        boolean passOnFocus = false;
-
-        // How long is the text been added
-        int strLength = text.length();
-        // Convert the value to an integer now and save us the hassel
-        int value = Integer.parseInt(text);
-
-        // If the length is only 1, probably a new character has been added
-        if (strLength == 1) {
-          // The valid range of values we can accept
-          int upperRange = 9;
-          int lowerRange = 0;
-          if (offset == 0) {
-            // If we are at the first edit position, we can only accept values
-            // from 0-5 (50 minutes that is)
-            upperRange = 5;
-          } else if (offset == 1) {
-            // Second edit position...
-            // Every thing is valid here...
-            // We want to pass on focus if the clock is in 12 hour mode
-            passOnFocus = !is24HourClock();
-          }
-
-          // Is the value acceptable..
-          if (value >= lowerRange && value <= upperRange) {
-            isAcceptable = true;
-          }
-        } else {
-          // Basically, we are going to trim the value down to at max 2 characters
-
-          // Need to know at what offest...
-          // 2 - offset..
-          // offset == 0, length = 2 - offset = 2
-          // offset == 1, length = 2 - offset = 1
-          strLength = 2 - offset;
-          String timeText = text.substring(offset, strLength);
-          value = Integer.parseInt(timeText);
-          if (value >= 0 && value <= 59) {
-            // Pad out the value as required
-            text = pad(value, 2);
-            isAcceptable = true;
-          }
-        }
-
-        if (isAcceptable) {
-          super.replace(fb, offset, length, text, attrs);
-          if (passOnFocus) {
-            moveFocusForward();
-          }
-        }
-
-      } catch (NumberFormatException exp) {
+    protected void paintComponent(Graphics g) {
+      String text = field.getTimeOfDay() == TimeOfDay.PM ? PM : AM;
+      FontMetrics fm = g.getFontMetrics(getFont());
+      Insets insets = getInsets();
+      int width = fm.stringWidth(text);
+      int x = getWidth() - insets.right - width;
+      int y = insets.top + (getHeight() - insets.top - insets.bottom - fm.getHeight()) / 2;
+      TimeFieldStyle style = TimeFieldStyle.getInstance();
+      if (isFocusOwner() && style.getSelectionBackground() != null) {
+        g.setColor(style.getSelectionBackground());
+        g.fillRect(x, y, width, fm.getHeight());
+        g.setColor(style.getSelectionForeground() != null ? style.getSelectionForeground() : getForeground());
+      } else {
+        Color inactive = style.getInactiveForeground();
+        g.setColor(isEnabled() || inactive == null ? getForeground() : inactive);
       }
+      g.setFont(getFont());
+      g.drawString(text, x, y + fm.getAscent());
     }
-  }
-
-  /**
-   * This is a simple "pass" on action handler...
-   */
-  protected class ActionHandler implements ActionListener {
 
     @Override
-    public void actionPerformed(ActionEvent e) {
-      ActionEvent evt = new ActionEvent(TimeField.this, e.getID(), e.getActionCommand(), e.getModifiers());
-
-      fireActionPerformed(evt);
+    protected void processFocusEvent(FocusEvent e) {
+      super.processFocusEvent(e);
+      repaint();
     }
-  }
-
-  public static String pad(long lValue, int iMinLength) {
-    return pad(Long.toString(lValue), 2);
-  }
-
-  public static String pad(int iValue, int iMinLength) {
-    return pad(Integer.toString(iValue), iMinLength);
-  }
 
-  public static String pad(String sValue, int iMinLength) {
-    StringBuilder sb = new StringBuilder(iMinLength);
-    sb.append(sValue);
-    while (sb.length() < iMinLength) {
-      sb.insert(0, "0");
+    @Override
+    protected void processMouseEvent(MouseEvent e) {
+      super.processMouseEvent(e);
+      if (e.getID() == MouseEvent.MOUSE_PRESSED && isEnabled()) {
+        // A click on the focused segment toggles it
+        if (isFocusOwner()) {
+          field.setTimeOfDay(field.getTimeOfDay() == TimeOfDay.AM ? TimeOfDay.PM : TimeOfDay.AM);
+        } else {
+          requestFocusInWindow();
+        }
+      }
     }
-    return sb.toString();
   }
-}
\ No newline at end of file
+}
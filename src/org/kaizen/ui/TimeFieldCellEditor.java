@@ -0,0 +1,305 @@
+package org.kaizen.ui;
+
+import java.awt.Component;
+import java.awt.EventQueue;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.awt.event.KeyEvent;
+import java.awt.event.MouseEvent;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.EventObject;
+import javax.swing.AbstractAction;
+import javax.swing.AbstractCellEditor;
+import javax.swing.JComponent;
+import javax.swing.JTable;
+import javax.swing.JTree;
+import javax.swing.KeyStroke;
+import javax.swing.table.TableCellEditor;
+import javax.swing.tree.TreeCellEditor;
+
+/**
+ * A table and tree cell editor which reuses a single time field for every
+ * edit.
+ *
+ * The field, its listeners and key bindings are set up once when the editor is
+ * created, starting an edit only resets the value of the field and moves focus
+ * to its first segment. Pressing enter, or completing the last segment,
+ * commits the edit and (for tables) starts editing the same column of the next
+ * row, escape cancels the edit.
+ *
+ * Values can be Numbers (milliseconds), Durations, LocalTimes, Dates or
+ * Calendars, the edited value is returned as the same type. An edit which
+ * doesn't fit the type of a Number cell, more than Integer.MAX_VALUE
+ * milliseconds for an Integer, can't be committed. Only the time of
+ * day of a Date or Calendar is edited, a Date is taken in the zone of a
+ * TimeField, or the system zone for other fields, a Calendar in its own zone.
+ */
+public class TimeFieldCellEditor extends AbstractCellEditor implements TableCellEditor, TreeCellEditor {
+
+	private static final long NANOS_PER_MILLI = 1000000L;
+	private static final long MILLIS_PER_DAY = 24 * TimeValueModel.MILLIS_PER_HOUR;
+
+	private final AbstractTimeField field;
+	private int clickCountToStart = 2;
+
+	private Object originalValue;
+	private JTable table;
+	private int row;
+	private int column;
+	// Set while the editor is changing the value of the field
+	private boolean adjusting;
+
+	/**
+	 * Creates a new editor using a DurationField with a single component
+	 * editor
+	 */
+	public TimeFieldCellEditor() {
+		this(new DurationField(false, true));
+	}
+
+	public TimeFieldCellEditor(AbstractTimeField field) {
+		this.field = field;
+		field.setTransferFocusOnCompletion(false);
+		field.addActionListener(new CommitHandler());
+		field.getInputMap(JComponent.WHEN_ANCESTOR_OF_FOCUSED_COMPONENT).put(KeyStroke.getKeyStroke(KeyEvent.VK_ESCAPE, 0), "cancelCellEdit");
+		field.getActionMap().put("cancelCellEdit", new AbstractAction() {
+			@Override
+			public void actionPerformed(ActionEvent e) {
+				cancelCellEditing();
+			}
+		});
+	}
+
+	/**
+	 * Returns the field used to edit the values
+	 *
+	 * @return
+	 */
+	public AbstractTimeField getField() {
+		return field;
+	}
+
+	public int getClickCountToStart() {
+		return clickCountToStart;
+	}
+
+	/**
+	 * Sets the number of mouse clicks needed to start editing
+	 *
+	 * @param count
+	 */
+	public void setClickCountToStart(int count) {
+		clickCountToStart = count;
+	}
+
+	@Override
+	public boolean isCellEditable(EventObject e) {
+		if (e instanceof MouseEvent) {
+			return ((MouseEvent) e).getClickCount() >= clickCountToStart;
+		}
+		return true;
+	}
+
+	@Override
+	public Object getCellEditorValue() {
+		long millis = field.getValue();
+		if (originalValue instanceof Duration) {
+			return Duration.ofMillis(millis);
+		} else if (originalValue instanceof LocalTime) {
+			return LocalTime.ofNanoOfDay(millis % MILLIS_PER_DAY * NANOS_PER_MILLI);
+		} else if (originalValue instanceof Date) {
+			ZoneId zone = getZone();
+			Instant instant = ((Date) originalValue).toInstant().atZone(zone)
+							.with(LocalTime.ofNanoOfDay(millis % MILLIS_PER_DAY * NANOS_PER_MILLI))
+							.toInstant();
+			return new Date(instant.toEpochMilli());
+		} else if (originalValue instanceof Calendar) {
+			Calendar calendar = (Calendar) ((Calendar) originalValue).clone();
+			long millisOfDay = millis % MILLIS_PER_DAY;
+			calendar.set(Calendar.HOUR_OF_DAY, (int) (millisOfDay / TimeValueModel.MILLIS_PER_HOUR));
+			calendar.set(Calendar.MINUTE, (int) (millisOfDay % TimeValueModel.MILLIS_PER_HOUR / TimeValueModel.MILLIS_PER_MINUTE));
+			calendar.set(Calendar.SECOND, (int) (millisOfDay % TimeValueModel.MILLIS_PER_MINUTE / 1000));
+			calendar.set(Calendar.MILLISECOND, (int) (millisOfDay % 1000));
+			return calendar;
+		} else if (originalValue instanceof Number) {
+			return toNumber((Number) originalValue, millis);
+		}
+		return millis;
+	}
+
+	/**
+	 * Converts the milliseconds back to the type of the original cell value,
+	 * values which don't fit are saturated, see {@link #stopCellEditing()}
+	 *
+	 * @param original
+	 * @param millis
+	 * @return
+	 */
+	protected Number toNumber(Number original, long millis) {
+		if (original instanceof Integer) {
+			return (int) Math.min(millis, Integer.MAX_VALUE);
+		} else if (original instanceof Short) {
+			return (short) Math.min(millis, Short.MAX_VALUE);
+		} else if (original instanceof Byte) {
+			return (byte) Math.min(millis, Byte.MAX_VALUE);
+		} else if (original instanceof Double) {
+			return (double) millis;
+		} else if (original instanceof Float) {
+			return (float) millis;
+		} else if (original instanceof BigInteger) {
+			return BigInteger.valueOf(millis);
+		} else if (original instanceof BigDecimal) {
+			return BigDecimal.valueOf(millis);
+		}
+		return millis;
+	}
+
+	/**
+	 * Returns the largest number of milliseconds the type of the original cell
+	 * value can hold
+	 */
+	private long getMaximumMillis() {
+		if (originalValue instanceof Integer) {
+			return Integer.MAX_VALUE;
+		} else if (originalValue instanceof Short) {
+			return Short.MAX_VALUE;
+		} else if (originalValue instanceof Byte) {
+			return Byte.MAX_VALUE;
+		}
+		return Long.MAX_VALUE;
+	}
+
+	/**
+	 * Refuses to stop editing while the value doesn't fit the type of a Number
+	 * cell, the user has to correct it or cancel the edit
+	 *
+	 * @return
+	 */
+	@Override
+	public boolean stopCellEditing() {
+		if (field.getValue() > getMaximumMillis()) {
+			return false;
+		}
+		return super.stopCellEditing();
+	}
+
+	@Override
+	public Component getTableCellEditorComponent(JTable table, Object value, boolean isSelected, int row, int column) {
+		this.table = table;
+		this.row = row;
+		this.column = column;
+		return startEditing(value);
+	}
+
+	@Override
+	public Component getTreeCellEditorComponent(JTree tree, Object value, boolean isSelected, boolean expanded, boolean leaf, int row) {
+		this.table = null;
+		return startEditing(value);
+	}
+
+	protected Component startEditing(Object value) {
+		originalValue = value;
+		adjusting = true;
+		try {
+			field.setValue(toMillis(value));
+		} finally {
+			adjusting = false;
+		}
+		EventQueue.invokeLater(new Runnable() {
+			@Override
+			public void run() {
+				JComponent[] segments = field.getSegments();
+				if (segments.length > 0) {
+					segments[0].requestFocusInWindow();
+				}
+			}
+		});
+		return field;
+	}
+
+	/**
+	 * Converts a cell value to a number of milliseconds, null is treated as
+	 * zero
+	 *
+	 * @param value
+	 * @return
+	 * @throws IllegalArgumentException if the value is of a type the editor
+	 * doesn't support
+	 */
+	protected long toMillis(Object value) {
+		long millis = 0;
+		if (value instanceof Number) {
+			millis = ((Number) value).longValue();
+		} else if (value instanceof Duration) {
+			millis = ((Duration) value).toMillis();
+		} else if (value instanceof LocalTime) {
+			millis = ((LocalTime) value).toNanoOfDay() / NANOS_PER_MILLI;
+		} else if (value instanceof Date) {
+			millis = TimeField.toMillisOfDay(((Date) value).getTime(), ZoneOffsetCache.forZone(getZone()));
+		} else if (value instanceof Calendar) {
+			Calendar calendar = (Calendar) value;
+			millis = calendar.get(Calendar.HOUR_OF_DAY) * TimeValueModel.MILLIS_PER_HOUR
+							+ calendar.get(Calendar.MINUTE) * TimeValueModel.MILLIS_PER_MINUTE
+							+ calendar.get(Calendar.SECOND) * 1000L
+							+ calendar.get(Calendar.MILLISECOND);
+		} else if (value != null) {
+			throw new IllegalArgumentException("Unsupported cell value " + value.getClass().getName());
+		}
+		return Math.max(0, millis);
+	}
+
+	/**
+	 * Returns the zone Dates are edited in, the zone of a TimeField or the
+	 * system zone
+	 */
+	private ZoneId getZone() {
+		return field instanceof TimeField ? ((TimeField) field).getZone() : ZoneId.systemDefault();
+	}
+
+	/**
+	 * Starts editing the same column on the next row of the table, if there is
+	 * one
+	 */
+	protected void editNextRow() {
+		if (table != null && row + 1 < table.getRowCount()) {
+			int next = row + 1;
+			table.changeSelection(next, column, false, false);
+			table.editCellAt(next, column);
+		}
+	}
+
+	/**
+	 * Commits the edit when the user presses enter or completes the last
+	 * segment, other actions of the field are ignored. This is deferred as
+	 * completion is triggered from within a document notification, where the
+	 * field's documents can't be changed
+	 */
+	protected class CommitHandler implements ActionListener {
+
+		@Override
+		public void actionPerformed(ActionEvent e) {
+			String command = e.getActionCommand();
+			if (adjusting || !(AbstractTimeField.COMMIT_ACTION_COMMAND.equals(command)
+							|| AbstractTimeField.COMPLETE_ACTION_COMMAND.equals(command))) {
+				return;
+			}
+			EventQueue.invokeLater(new Runnable() {
+				@Override
+				public void run() {
+					if (field.getParent() != null && stopCellEditing()) {
+						editNextRow();
+					}
+				}
+			});
+		}
+
+	}
+
+}
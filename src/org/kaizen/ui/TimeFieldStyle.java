@@ -0,0 +1,138 @@
+package org.kaizen.ui;
+
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.Insets;
+import java.beans.PropertyChangeEvent;
+import java.beans.PropertyChangeListener;
+import javax.swing.UIManager;
+import javax.swing.border.Border;
+import javax.swing.border.CompoundBorder;
+import javax.swing.border.EmptyBorder;
+
+/**
+ * The look and feel resources used by the time fields, resolved from the
+ * UIManager once and shared by every field.
+ *
+ * Borders and colours are immutable, so a single instance of each can be
+ * shared, including the compound border which makes the panel of segments
+ * look like a text field. The whole style is thrown away in one step when the
+ * UIManager's "lookAndFeel" property changes and resolved again on next use,
+ * so every field picks up the same resources once it updates its UI.
+ *
+ * Changes made to individual UIManager defaults are not noticed until the
+ * look and feel changes, or {@link #invalidate()} is called.
+ */
+public final class TimeFieldStyle {
+
+	private static final Insets SEGMENT_PADDING = new Insets(0, 2, 0, 2);
+
+	private static volatile TimeFieldStyle instance;
+
+	static {
+		UIManager.addPropertyChangeListener(new PropertyChangeListener() {
+			@Override
+			public void propertyChange(PropertyChangeEvent evt) {
+				if ("lookAndFeel".equals(evt.getPropertyName())) {
+					invalidate();
+				}
+			}
+		});
+	}
+
+	private final Border textFieldBorder;
+	private final Border segmentBorder;
+	private final Color background;
+	private final Color foreground;
+	private final Color inactiveForeground;
+	private final Color selectionBackground;
+	private final Color selectionForeground;
+	private final Color caretForeground;
+	private final Font font;
+
+	private TimeFieldStyle() {
+		textFieldBorder = UIManager.getBorder("TextField.border");
+		segmentBorder = new CompoundBorder(textFieldBorder, new EmptyBorder(SEGMENT_PADDING));
+		// Not a UIResource, so the background survives the panel updating
+		// its own UI, the field puts it back when the look and feel changes
+		background = plain(UIManager.getColor("TextField.background"));
+		foreground = UIManager.getColor("TextField.foreground");
+		inactiveForeground = UIManager.getColor("TextField.inactiveForeground");
+		selectionBackground = UIManager.getColor("TextField.selectionBackground");
+		selectionForeground = UIManager.getColor("TextField.selectionForeground");
+		caretForeground = UIManager.getColor("TextField.caretForeground");
+		font = UIManager.getFont("TextField.font");
+	}
+
+	private static Color plain(Color color) {
+		return color == null ? null : new Color(color.getRGB(), true);
+	}
+
+	/**
+	 * Returns the style of the current look and feel
+	 *
+	 * @return
+	 */
+	public static TimeFieldStyle getInstance() {
+		TimeFieldStyle style = instance;
+		if (style == null) {
+			style = new TimeFieldStyle();
+			instance = style;
+		}
+		return style;
+	}
+
+	/**
+	 * Throws the style away, it's resolved again the next time it is used
+	 */
+	public static void invalidate() {
+		instance = null;
+	}
+
+	/**
+	 * Returns the border of a text field, may be null
+	 *
+	 * @return
+	 */
+	public Border getTextFieldBorder() {
+		return textFieldBorder;
+	}
+
+	/**
+	 * Returns the text field border with the padding around the segments
+	 *
+	 * @return
+	 */
+	public Border getSegmentBorder() {
+		return segmentBorder;
+	}
+
+	public Color getBackground() {
+		return background;
+	}
+
+	public Color getForeground() {
+		return foreground;
+	}
+
+	public Color getInactiveForeground() {
+		return inactiveForeground;
+	}
+
+	public Color getSelectionBackground() {
+		return selectionBackground;
+	}
+
+	public Color getSelectionForeground() {
+		return selectionForeground;
+	}
+
+	public Color getCaretForeground() {
+		return caretForeground;
+	}
+
+	public Font getFont() {
+		return font;
+	}
+
+}
@@ -0,0 +1,95 @@
+package org.kaizen.ui;
+
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+import javax.swing.Timer;
+
+/**
+ * Ticks every live field on the same second boundary.
+ *
+ * A single timer serves all fields, it is only running while there are
+ * fields registered and is rescheduled after each tick to fire on the next
+ * whole second of the system clock. The clock is read once per tick and the
+ * same time is handed to every field, so fields showing the same time always
+ * agree. Fields are held in an identity set, so registering and
+ * unregistering a field costs the same however many fields are live.
+ *
+ * Only used on the EDT.
+ */
+final class TimeFieldTicker implements ActionListener {
+
+	private static final long TICK_MILLIS = 1000;
+
+	private static final TimeFieldTicker SHARED_INSTANCE = new TimeFieldTicker();
+
+	private final Set<AbstractTimeField> fields = Collections.newSetFromMap(new IdentityHashMap<AbstractTimeField, Boolean>());
+	private final Timer timer;
+	// Reused for each tick, the fields can change while they are ticked
+	private AbstractTimeField[] ticking = new AbstractTimeField[0];
+
+	static TimeFieldTicker getSharedInstance() {
+		return SHARED_INSTANCE;
+	}
+
+	private TimeFieldTicker() {
+		timer = new Timer((int) TICK_MILLIS, this);
+		timer.setRepeats(false);
+	}
+
+	/**
+	 * Starts ticking the field, ignored if it is already registered
+	 *
+	 * @param field
+	 */
+	void register(AbstractTimeField field) {
+		if (fields.add(field) && !timer.isRunning()) {
+			long now = System.currentTimeMillis();
+			schedule(now / TICK_MILLIS * TICK_MILLIS + TICK_MILLIS, now);
+		}
+	}
+
+	void unregister(AbstractTimeField field) {
+		fields.remove(field);
+		if (fields.isEmpty()) {
+			timer.stop();
+		}
+	}
+
+	/**
+	 * Returns the whole second nearest to the time, the timer may fire a
+	 * little early or late
+	 */
+	private static long align(long now) {
+		return (now + TICK_MILLIS / 2) / TICK_MILLIS * TICK_MILLIS;
+	}
+
+	private void schedule(long next, long now) {
+		timer.setInitialDelay((int) Math.max(1, next - now));
+		timer.restart();
+	}
+
+	@Override
+	public void actionPerformed(ActionEvent e) {
+		long now = System.currentTimeMillis();
+		long tick = align(now);
+		int count = fields.size();
+		ticking = fields.toArray(ticking);
+		for (int index = 0; index < count; index++) {
+			AbstractTimeField field = ticking[index];
+			// A field may be unregistered by one ticked before it
+			if (fields.contains(field)) {
+				field.liveTick(tick);
+			}
+		}
+		// Don't hold on to fields which have gone
+		Arrays.fill(ticking, 0, count, null);
+		if (!fields.isEmpty()) {
+			schedule(tick + TICK_MILLIS, now);
+		}
+	}
+
+}
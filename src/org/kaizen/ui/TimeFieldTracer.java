@@ -0,0 +1,84 @@
+package org.kaizen.ui;
+
+import javax.swing.JComponent;
+import org.kaizen.ui.SegmentValidator.SegmentType;
+
+/**
+ * Receives the decisions made by the document filters of the time fields.
+ *
+ * Tracers are called on the Event Dispatching Thread for every edit, so
+ * implementations should be cheap and must not block. The default,
+ * {@link #NONE}, does nothing and is inlined away by the JIT, so fields which
+ * are not been traced pay nothing for it.
+ *
+ * @see RingBufferTracer
+ */
+public interface TimeFieldTracer {
+
+	/**
+	 * The reason for a filter decision
+	 */
+	public enum Reason {
+
+		/**
+		 * Text was inserted without validation
+		 */
+		INSERTED(true),
+		/**
+		 * The edit passed validation
+		 */
+		ACCEPTED(true),
+		/**
+		 * There was no text to apply
+		 */
+		NO_TEXT(false),
+		/**
+		 * The character is not allowed at the edit position
+		 */
+		INVALID_CHARACTER(false),
+		/**
+		 * The text could not be parsed or was outside of the allowable range
+		 */
+		INVALID_VALUE(false),
+		/**
+		 * The edit would make the segment longer than it is allowed to be
+		 */
+		TOO_LONG(false);
+
+		private final boolean accepted;
+
+		private Reason(boolean accepted) {
+			this.accepted = accepted;
+		}
+
+		/**
+		 * Returns true if the edit was applied to the field
+		 *
+		 * @return
+		 */
+		public boolean isAccepted() {
+			return accepted;
+		}
+	}
+
+	/**
+	 * A tracer which does nothing
+	 */
+	public static final TimeFieldTracer NONE = new TimeFieldTracer() {
+		@Override
+		public void filtered(JComponent field, SegmentType segment, int offset, String text, Reason reason) {
+		}
+	};
+
+	/**
+	 * Called when a document filter has made a decision about an edit
+	 *
+	 * @param field The time field which owns the segment
+	 * @param segment The segment been edited
+	 * @param offset The offset of the edit within the segment
+	 * @param text The text as it was supplied to the filter, may be null
+	 * @param reason The decision and why it was made
+	 */
+	public void filtered(JComponent field, SegmentType segment, int offset, String text, Reason reason);
+
+}
@@ -0,0 +1,102 @@
+package org.kaizen.ui;
+
+/**
+ * Brings raw hour, minute and second values into the range of a single day
+ * using exact integer arithmetic.
+ *
+ * Values wrap around in both directions, so 25 hours becomes 1 and -1 minute
+ * becomes 59. When carrying, minutes which overflow (or underflow) the hour
+ * are added to (or taken from) the hour before it is wrapped, so 23:90
+ * becomes 00:30 and 00:-30 becomes 23:30.
+ *
+ * The bulk methods work on arrays in place, so imported data can be
+ * normalised without going through a Swing component.
+ */
+public final class TimeNormalizer {
+
+	public static final int HOURS_PER_DAY = 24;
+	public static final int MINUTES_PER_HOUR = 60;
+	public static final int MINUTES_PER_DAY = HOURS_PER_DAY * MINUTES_PER_HOUR;
+	public static final int SECONDS_PER_DAY = MINUTES_PER_DAY * 60;
+
+	private TimeNormalizer() {
+	}
+
+	/**
+	 * Wraps the hour into the range 0-23
+	 *
+	 * @param hour
+	 * @return
+	 */
+	public static int wrapHour(int hour) {
+		return Math.floorMod(hour, HOURS_PER_DAY);
+	}
+
+	/**
+	 * Wraps the minute into the range 0-59, discarding the overflow
+	 *
+	 * @param minute
+	 * @return
+	 */
+	public static int wrapMinute(int minute) {
+		return Math.floorMod(minute, MINUTES_PER_HOUR);
+	}
+
+	/**
+	 * Returns the minute of the day (0-1439) for the hour and minute, carrying
+	 * any minute overflow into the hour
+	 *
+	 * @param hour
+	 * @param minute
+	 * @return
+	 */
+	public static int minuteOfDay(int hour, int minute) {
+		return (int) Math.floorMod(hour * (long) MINUTES_PER_HOUR + minute, (long) MINUTES_PER_DAY);
+	}
+
+	/**
+	 * Normalises hour/minute pairs in place. The array holds the pairs as
+	 * consecutive values, hour first.
+	 *
+	 * @param values The hour/minute pairs
+	 * @param offset The index of the first hour
+	 * @param pairs The number of pairs to normalise
+	 * @param carry If true, minute overflow is carried into the hour,
+	 * otherwise it is discarded
+	 */
+	public static void normalizeHourMinutes(int[] values, int offset, int pairs, boolean carry) {
+		int end = offset + pairs * 2;
+		if (offset < 0 || pairs < 0 || end > values.length) {
+			throw new ArrayIndexOutOfBoundsException("Pairs " + offset + "+" + pairs + " do not fit within " + values.length);
+		}
+		for (int index = offset; index < end; index += 2) {
+			if (carry) {
+				int minuteOfDay = minuteOfDay(values[index], values[index + 1]);
+				values[index] = minuteOfDay / MINUTES_PER_HOUR;
+				values[index + 1] = minuteOfDay % MINUTES_PER_HOUR;
+			} else {
+				values[index] = wrapHour(values[index]);
+				values[index + 1] = wrapMinute(values[index + 1]);
+			}
+		}
+	}
+
+	/**
+	 * Normalises seconds in place, wrapping each into a second of the day
+	 * (0-86399)
+	 *
+	 * @param seconds
+	 * @param offset The index of the first value
+	 * @param length The number of values
+	 */
+	public static void normalizeSecondsOfDay(int[] seconds, int offset, int length) {
+		int end = offset + length;
+		if (offset < 0 || length < 0 || end > seconds.length) {
+			throw new ArrayIndexOutOfBoundsException("Values " + offset + "+" + length + " do not fit within " + seconds.length);
+		}
+		for (int index = offset; index < end; index++) {
+			seconds[index] = Math.floorMod(seconds[index], SECONDS_PER_DAY);
+		}
+	}
+
+}
@@ -0,0 +1,608 @@
+package org.kaizen.ui;
+
+import org.kaizen.ui.SegmentValidator.SegmentType;
+
+/**
+ * Parses time values without the need for any UI components.
+ *
+ * There are two families of methods. The strict methods,
+ * {@link #parseSegment}, {@link #parsePackedTime} and
+ * {@link #parsePackedDuration}, follow exactly the rules of
+ * {@link TimeField} and {@link DurationField}, the document filters of which
+ * delegate to them. The results are packed into a single int or long, which
+ * can be unpacked with {@link #packedHour}, {@link #packedMinute} and so on.
+ *
+ * The lenient methods, {@link #parseTimeOfDay} and {@link #parseDuration},
+ * are used for whole values pasted into a field. The following forms are
+ * understood, surrounding white space is ignored
+ * <ul>
+ * <li>Separated fields, "12", "12:34", "01:02:03" or "123:45.06", the minutes
+ * and seconds must be less than 60</li>
+ * <li>Units, "1h30m", "90m", "1h 5m 30s", where the values of each unit are
+ * added together, so they can overflow into the next unit</li>
+ * <li>For times of day, an "am"/"pm" suffix ("a", "pm", "p.m.", etc) after
+ * separated fields, where the hour must be 0-12</li>
+ * </ul>
+ *
+ * All of the methods accept either a CharSequence or a range of a char[], they
+ * never allocate or throw, failures are reported by returning one of the
+ * (negative) error codes, which can be tested with {@link #isError(long)}.
+ */
+public final class TimeParser {
+
+	/**
+	 * Returned when the text is not in the expected form
+	 */
+	public static final int INVALID = -1;
+	/**
+	 * Returned when the text contains a character which is not allowed
+	 */
+	public static final int INVALID_CHARACTER = -2;
+	/**
+	 * Returned when a value is larger than its segment allows
+	 */
+	public static final int OUT_OF_RANGE = -3;
+	/**
+	 * Returned when a segment has the wrong number of digits
+	 */
+	public static final int INVALID_LENGTH = -4;
+	/**
+	 * Returned when there is no text to parse
+	 */
+	public static final int EMPTY = -5;
+
+	private static final int TIME_HOUR_SHIFT = 8;
+	private static final int DURATION_HOUR_SHIFT = 16;
+	private static final int DURATION_MINUTE_SHIFT = 8;
+	private static final int FIELD_MASK = 0xFF;
+
+	private static final int HOUR_UNIT = 4;
+	private static final int MINUTE_UNIT = 2;
+	private static final int SECOND_UNIT = 1;
+
+	private static final int NO_MERIDIEM = 0;
+	private static final int AM = 1;
+	private static final int PM = 2;
+
+	private TimeParser() {
+	}
+
+	/**
+	 * Returns true if the result of a parse is one of the error codes
+	 *
+	 * @param result
+	 * @return
+	 */
+	public static boolean isError(long result) {
+		return result < 0;
+	}
+
+	/**
+	 * Parses the value of a single segment, following the same rules the
+	 * document filters apply when text is pasted into the segment. Fixed width
+	 * segments only consider the leading characters which will fit within the
+	 * segment, the value must not be larger than {@link #maximumValue}.
+	 *
+	 * @param type The type of segment
+	 * @param use24HourClock The clock mode of the field
+	 * @param text
+	 * @param start The index of the first character
+	 * @param end The index after the last character
+	 * @return The value or an error code
+	 */
+	public static int parseSegment(SegmentType type, boolean use24HourClock, CharSequence text, int start, int end) {
+		return segment(type, use24HourClock, text, start, end);
+	}
+
+	/**
+	 * @see #parseSegment(SegmentType, boolean, CharSequence, int, int)
+	 */
+	public static int parseSegment(SegmentType type, boolean use24HourClock, char[] text, int start, int end) {
+		return segment(type, use24HourClock, text, start, end);
+	}
+
+	/**
+	 * Returns the largest value a segment of the given type can hold, hours of
+	 * a 12 hour clock are 0-12. The keystroke table of
+	 * {@link SegmentValidator} is built from this, so typed and parsed values
+	 * always agree
+	 *
+	 * @param type The type of segment
+	 * @param use24HourClock The clock mode of the field
+	 * @return
+	 */
+	public static int maximumValue(SegmentType type, boolean use24HourClock) {
+		return type == SegmentType.HOUR && !use24HourClock ? 12 : type.getMaximum();
+	}
+
+	/**
+	 * Parses a complete "HH:mm" time, as entered in a {@link TimeField}. Both
+	 * fields must be two digits, hours above 12 are out of range on a 12 hour
+	 * clock
+	 *
+	 * @param text
+	 * @param start The index of the first character
+	 * @param end The index after the last character
+	 * @param use24HourClock The clock mode of the field
+	 * @return The hour and minute packed into an int or an error code
+	 */
+	public static int parsePackedTime(CharSequence text, int start, int end, boolean use24HourClock) {
+		return packedTime(text, start, end, use24HourClock);
+	}
+
+	/**
+	 * @see #parsePackedTime(CharSequence, int, int, boolean)
+	 */
+	public static int parsePackedTime(char[] text, int start, int end, boolean use24HourClock) {
+		return packedTime(text, start, end, use24HourClock);
+	}
+
+	/**
+	 * Parses a complete "HHH:mm.ss" duration, as entered in a
+	 * {@link DurationField}. The hours can be any number of digits, the minutes
+	 * and seconds must be two digits and either ':' or '.' can separate them.
+	 * The seconds are optional, so "HH:mm" is also accepted
+	 *
+	 * @param text
+	 * @param start The index of the first character
+	 * @param end The index after the last character
+	 * @return The hours, minutes and seconds packed into a long or an error
+	 * code
+	 */
+	public static long parsePackedDuration(CharSequence text, int start, int end) {
+		return packedDuration(text, start, end);
+	}
+
+	/**
+	 * @see #parsePackedDuration(CharSequence, int, int)
+	 */
+	public static long parsePackedDuration(char[] text, int start, int end) {
+		return packedDuration(text, start, end);
+	}
+
+	/**
+	 * Parses a complete duration, the same as
+	 * {@link #parsePackedDuration(CharSequence, int, int)}, for a field which
+	 * can display at most the given number of hour digits
+	 *
+	 * @param text
+	 * @param start The index of the first character
+	 * @param end The index after the last character
+	 * @param maximumHourDigits The number of hour digits the field can display
+	 * @return The hours, minutes and seconds packed into a long or an error
+	 * code, {@link #OUT_OF_RANGE} if there are more hours than the digits can
+	 * hold
+	 */
+	public static long parsePackedDuration(CharSequence text, int start, int end, int maximumHourDigits) {
+		return limitHours(packedDuration(text, start, end), maximumHourDigits);
+	}
+
+	/**
+	 * @see #parsePackedDuration(CharSequence, int, int, int)
+	 */
+	public static long parsePackedDuration(char[] text, int start, int end, int maximumHourDigits) {
+		return limitHours(packedDuration(text, start, end), maximumHourDigits);
+	}
+
+	/**
+	 * Returns the largest value which can be written with the given number of
+	 * digits, Integer.MAX_VALUE once it no longer fits
+	 *
+	 * @param digits
+	 * @return
+	 */
+	public static int largestValue(int digits) {
+		long value = 0;
+		for (int digit = 0; digit < digits && value <= Integer.MAX_VALUE; digit++) {
+			value = value * 10 + 9;
+		}
+		return (int) Math.min(value, Integer.MAX_VALUE);
+	}
+
+	private static long limitHours(long packedDuration, int maximumHourDigits) {
+		if (!isError(packedDuration) && packedHours(packedDuration) > largestValue(maximumHourDigits)) {
+			return OUT_OF_RANGE;
+		}
+		return packedDuration;
+	}
+
+	public static int packedHour(int packedTime) {
+		return packedTime >>> TIME_HOUR_SHIFT;
+	}
+
+	public static int packedMinute(int packedTime) {
+		return packedTime & FIELD_MASK;
+	}
+
+	public static int packedHours(long packedDuration) {
+		return (int) (packedDuration >>> DURATION_HOUR_SHIFT);
+	}
+
+	public static int packedMinutes(long packedDuration) {
+		return (int) (packedDuration >>> DURATION_MINUTE_SHIFT) & FIELD_MASK;
+	}
+
+	public static int packedSeconds(long packedDuration) {
+		return (int) packedDuration & FIELD_MASK;
+	}
+
+	/**
+	 * Converts a packed duration into milliseconds
+	 *
+	 * @param packedDuration
+	 * @return
+	 */
+	public static long packedDurationToMillis(long packedDuration) {
+		return packedHours(packedDuration) * TimeValueModel.MILLIS_PER_HOUR
+						+ packedMinutes(packedDuration) * TimeValueModel.MILLIS_PER_MINUTE
+						+ packedSeconds(packedDuration) * TimeValueModel.MILLIS_PER_SECOND;
+	}
+
+	/**
+	 * Returns true if the text is more than a run of digits, that is, it is an
+	 * attempt to enter a whole value rather than a single segment
+	 *
+	 * @param text
+	 * @return
+	 */
+	public static boolean isWholeValue(CharSequence text) {
+		for (int index = 0; index < text.length(); index++) {
+			char c = text.charAt(index);
+			if (c < '0' || c > '9') {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Parses a time of day
+	 *
+	 * @param text
+	 * @return The number of milliseconds since the start of the day or an
+	 * error code
+	 */
+	public static long parseTimeOfDay(CharSequence text) {
+		return parseTimeOfDay(text, 0, text.length());
+	}
+
+	/**
+	 * Parses a time of day from a range of the text
+	 *
+	 * @param text
+	 * @param start The index of the first character
+	 * @param end The index after the last character
+	 * @return The number of milliseconds since the start of the day or an
+	 * error code
+	 */
+	public static long parseTimeOfDay(CharSequence text, int start, int end) {
+		return scan(text, start, end, true);
+	}
+
+	/**
+	 * @see #parseTimeOfDay(CharSequence, int, int)
+	 */
+	public static long parseTimeOfDay(char[] text, int start, int end) {
+		return scan(text, start, end, true);
+	}
+
+	/**
+	 * Parses a duration
+	 *
+	 * @param text
+	 * @return The number of milliseconds or an error code
+	 */
+	public static long parseDuration(CharSequence text) {
+		return parseDuration(text, 0, text.length());
+	}
+
+	/**
+	 * Parses a duration from a range of the text
+	 *
+	 * @param text
+	 * @param start The index of the first character
+	 * @param end The index after the last character
+	 * @return The number of milliseconds or an error code
+	 */
+	public static long parseDuration(CharSequence text, int start, int end) {
+		return scan(text, start, end, false);
+	}
+
+	/**
+	 * @see #parseDuration(CharSequence, int, int)
+	 */
+	public static long parseDuration(char[] text, int start, int end) {
+		return scan(text, start, end, false);
+	}
+
+	/**
+	 * Reads a character from either a CharSequence or a char[], so a single
+	 * implementation serves both without wrapping the array
+	 */
+	private static char charAt(Object text, int index) {
+		if (text instanceof char[]) {
+			return ((char[]) text)[index];
+		}
+		return ((CharSequence) text).charAt(index);
+	}
+
+	private static int segment(SegmentType type, boolean use24HourClock, Object text, int start, int end) {
+		if (type.getWidth() > 0) {
+			end = Math.min(end, start + type.getWidth());
+		}
+		if (start >= end) {
+			return EMPTY;
+		}
+		int maximum = maximumValue(type, use24HourClock);
+		long value = 0;
+		for (int index = start; index < end; index++) {
+			int digit = charAt(text, index) - '0';
+			if (digit < 0 || digit > 9) {
+				return INVALID_CHARACTER;
+			}
+			value = value * 10 + digit;
+			if (value > maximum) {
+				return OUT_OF_RANGE;
+			}
+		}
+		return (int) value;
+	}
+
+	/**
+	 * Parses a fixed width segment which must end at the end index or a
+	 * separator, returns the value or an error code
+	 */
+	private static int fixedSegment(SegmentType type, boolean use24HourClock, Object text, int start, int end) {
+		int length = digitsFrom(text, start, end);
+		if (length == 0) {
+			return start < end && !isSeparator(charAt(text, start)) ? INVALID_CHARACTER : EMPTY;
+		}
+		if (length != type.getWidth()) {
+			return INVALID_LENGTH;
+		}
+		return segment(type, use24HourClock, text, start, start + length);
+	}
+
+	private static int packedTime(Object text, int start, int end, boolean use24HourClock) {
+		int hour = fixedSegment(SegmentType.HOUR, use24HourClock, text, start, end);
+		if (hour < 0) {
+			return hour;
+		}
+		int index = start + SegmentType.HOUR.getWidth();
+		if (index >= end) {
+			return EMPTY;
+		}
+		if (charAt(text, index) != ':') {
+			return INVALID_CHARACTER;
+		}
+		int minute = fixedSegment(SegmentType.MINUTE, use24HourClock, text, index + 1, end);
+		if (minute < 0) {
+			return minute;
+		}
+		if (index + 1 + SegmentType.MINUTE.getWidth() != end) {
+			return INVALID_CHARACTER;
+		}
+		return hour << TIME_HOUR_SHIFT | minute;
+	}
+
+	private static long packedDuration(Object text, int start, int end) {
+		int length = digitsFrom(text, start, end);
+		if (length == 0) {
+			return start < end ? INVALID_CHARACTER : EMPTY;
+		}
+		int hours = segment(SegmentType.DURATION_HOUR, true, text, start, start + length);
+		if (hours < 0) {
+			return hours;
+		}
+		int index = start + length;
+		if (index >= end) {
+			return EMPTY;
+		}
+		if (!isSeparator(charAt(text, index))) {
+			return INVALID_CHARACTER;
+		}
+		index++;
+		int minutes = fixedSegment(SegmentType.MINUTE, true, text, index, end);
+		if (minutes < 0) {
+			return minutes;
+		}
+		index += SegmentType.MINUTE.getWidth();
+		int seconds = 0;
+		if (index < end) {
+			if (!isSeparator(charAt(text, index))) {
+				return INVALID_CHARACTER;
+			}
+			index++;
+			seconds = fixedSegment(SegmentType.SECOND, true, text, index, end);
+			if (seconds < 0) {
+				return seconds;
+			}
+			if (index + SegmentType.SECOND.getWidth() != end) {
+				return INVALID_CHARACTER;
+			}
+		}
+		return (long) hours << DURATION_HOUR_SHIFT | minutes << DURATION_MINUTE_SHIFT | seconds;
+	}
+
+	private static boolean isSeparator(char c) {
+		return c == ':' || c == '.';
+	}
+
+	/**
+	 * Returns the number of digits from the start index
+	 */
+	private static int digitsFrom(Object text, int start, int end) {
+		int index = start;
+		while (index < end) {
+			char c = charAt(text, index);
+			if (c < '0' || c > '9') {
+				break;
+			}
+			index++;
+		}
+		return index - start;
+	}
+
+	private static long scan(Object text, int start, int end, boolean timeOfDay) {
+		int index = skipSpaces(text, start, end);
+		while (end > index && Character.isWhitespace(charAt(text, end - 1))) {
+			end--;
+		}
+		if (index >= end) {
+			return EMPTY;
+		}
+
+		long hour = 0;
+		long minute = 0;
+		long second = 0;
+		// The number of separated fields read
+		int fields = 0;
+		// The units read, each unit must be smaller than the one before it
+		int units = 0;
+
+		while (index < end) {
+			int digitsStart = index;
+			long value = 0;
+			for (; index < end; index++) {
+				int digit = charAt(text, index) - '0';
+				if (digit < 0 || digit > 9) {
+					break;
+				}
+				value = value * 10 + digit;
+				if (value > Integer.MAX_VALUE) {
+					return OUT_OF_RANGE;
+				}
+			}
+			int digits = index - digitsStart;
+			if (digits == 0) {
+				return INVALID_CHARACTER;
+			}
+
+			int next = skipSpaces(text, index, end);
+			char c = next < end ? Character.toLowerCase(charAt(text, next)) : 0;
+			int unit = c == 'h' ? HOUR_UNIT : c == 'm' ? MINUTE_UNIT : c == 's' ? SECOND_UNIT : 0;
+			if (unit != 0) {
+				// "1h30m", the units can't be mixed with separated fields or repeated
+				if (fields > 0 || (units != 0 && unit >= Integer.lowestOneBit(units))) {
+					return INVALID;
+				}
+				units |= unit;
+				switch (unit) {
+					case HOUR_UNIT:
+						hour = value;
+						break;
+					case MINUTE_UNIT:
+						minute = value;
+						break;
+					default:
+						second = value;
+						break;
+				}
+				index = skipSpaces(text, next + 1, end);
+				continue;
+			}
+			if (units != 0) {
+				return INVALID;
+			}
+
+			// "12:34:56", fixed fields
+			switch (fields) {
+				case 0:
+					if (timeOfDay && digits > 2) {
+						return INVALID_LENGTH;
+					}
+					hour = value;
+					break;
+				case 1:
+					if (digits > 2) {
+						return INVALID_LENGTH;
+					}
+					if (value > 59) {
+						return OUT_OF_RANGE;
+					}
+					minute = value;
+					break;
+				default:
+					if (digits > 2) {
+						return INVALID_LENGTH;
+					}
+					if (value > 59) {
+						return OUT_OF_RANGE;
+					}
+					second = value;
+					break;
+			}
+			fields++;
+			if (index < end && (charAt(text, index) == ':' || charAt(text, index) == '.') && fields < 3) {
+				// A separator must be followed straight away by the next field
+				index++;
+				if (index >= end) {
+					return INVALID;
+				}
+				continue;
+			}
+			index = next;
+			break;
+		}
+
+		if (index < end) {
+			// The only thing allowed after separated fields is the time of day
+			if (!timeOfDay || units != 0) {
+				return INVALID;
+			}
+			int meridiem = scanMeridiem(text, index, end);
+			if (meridiem == NO_MERIDIEM) {
+				return INVALID_CHARACTER;
+			}
+			if (hour > 12) {
+				return OUT_OF_RANGE;
+			}
+			hour = hour % 12 + (meridiem == PM ? 12 : 0);
+		}
+
+		long millis = hour * TimeValueModel.MILLIS_PER_HOUR
+						+ minute * TimeValueModel.MILLIS_PER_MINUTE
+						+ second * TimeValueModel.MILLIS_PER_SECOND;
+		if (timeOfDay && millis >= 24 * TimeValueModel.MILLIS_PER_HOUR) {
+			return OUT_OF_RANGE;
+		}
+		if (!timeOfDay && millis / TimeValueModel.MILLIS_PER_HOUR > Integer.MAX_VALUE) {
+			return OUT_OF_RANGE;
+		}
+		return millis;
+	}
+
+	/**
+	 * Reads "a", "am", "a.m." or the "p" equivalents, which must run to the
+	 * end of the text
+	 */
+	private static int scanMeridiem(Object text, int index, int end) {
+		char c = Character.toLowerCase(charAt(text, index));
+		int meridiem;
+		if (c == 'a') {
+			meridiem = AM;
+		} else if (c == 'p') {
+			meridiem = PM;
+		} else {
+			return NO_MERIDIEM;
+		}
+		index++;
+		if (index < end && charAt(text, index) == '.') {
+			index++;
+		}
+		if (index < end && Character.toLowerCase(charAt(text, index)) == 'm') {
+			index++;
+			if (index < end && charAt(text, index) == '.') {
+				index++;
+			}
+		}
+		return index == end ? meridiem : NO_MERIDIEM;
+	}
+
+	private static int skipSpaces(Object text, int index, int end) {
+		while (index < end && Character.isWhitespace(charAt(text, index))) {
+			index++;
+		}
+		return index;
+	}
+}
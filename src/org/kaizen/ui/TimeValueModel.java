@@ -0,0 +1,199 @@
+package org.kaizen.ui;
+
+import java.time.Duration;
+import javax.swing.event.ChangeEvent;
+import javax.swing.event.ChangeListener;
+import javax.swing.event.EventListenerList;
+
+/**
+ * Holds the committed value of a time field as a single packed number of
+ * milliseconds.
+ *
+ * The document filters of the field update the model as each edit is
+ * accepted, so reading the value is a plain field read rather than a parse of
+ * the text. Listeners are only notified when the value actually changes.
+ *
+ * Values finer than a millisecond are held as an additional number of
+ * nanoseconds, so a {@link Duration} can be stored without loss.
+ */
+public class TimeValueModel {
+
+	public static final long MILLIS_PER_SECOND = 1000L;
+	public static final long MILLIS_PER_MINUTE = 60L * MILLIS_PER_SECOND;
+	public static final long MILLIS_PER_HOUR = 60L * MILLIS_PER_MINUTE;
+	public static final long MILLIS_PER_DAY = 24L * MILLIS_PER_HOUR;
+	public static final int NANOS_PER_MILLI = 1000000;
+
+	private final EventListenerList listenerList = new EventListenerList();
+	private ChangeEvent changeEvent;
+
+	private long millis;
+	// The nanoseconds within the millisecond
+	private int nanos;
+
+	public TimeValueModel() {
+	}
+
+	public TimeValueModel(long millis) {
+		this.millis = millis;
+	}
+
+	/**
+	 * Returns the value as a number of milliseconds
+	 *
+	 * @return
+	 */
+	public long getMillis() {
+		return millis;
+	}
+
+	/**
+	 * Sets the value as a number of milliseconds, clearing any nanoseconds.
+	 * Listeners are notified if the value has changed
+	 *
+	 * @param value
+	 */
+	public void setMillis(long value) {
+		setValue(value, 0);
+	}
+
+	/**
+	 * Returns the nanoseconds within the current millisecond, 0-999,999
+	 *
+	 * @return
+	 */
+	public int getNanoOfMillisecond() {
+		return nanos;
+	}
+
+	/**
+	 * Sets the value as a number of milliseconds and the nanoseconds within
+	 * the last millisecond, listeners are notified at most once
+	 *
+	 * @param millis
+	 * @param nanoOfMillisecond
+	 */
+	public void setValue(long millis, int nanoOfMillisecond) {
+		if (millis < 0) {
+			throw new IllegalArgumentException("Time values can not be negative");
+		}
+		if (nanoOfMillisecond < 0 || nanoOfMillisecond >= NANOS_PER_MILLI) {
+			throw new IllegalArgumentException("Nanoseconds must be between 0 and 999,999: " + nanoOfMillisecond);
+		}
+		if (millis != this.millis || nanoOfMillisecond != nanos) {
+			this.millis = millis;
+			nanos = nanoOfMillisecond;
+			fireStateChanged();
+		}
+	}
+
+	/**
+	 * Returns the value as a Duration
+	 *
+	 * @return
+	 */
+	public Duration toDuration() {
+		return Duration.ofMillis(millis).plusNanos(nanos);
+	}
+
+	/**
+	 * Sets the value from a Duration
+	 *
+	 * @param duration
+	 * @throws IllegalArgumentException if the duration is negative
+	 * @throws ArithmeticException if the duration is too large to be held
+	 */
+	public void setDuration(Duration duration) {
+		if (duration.isNegative()) {
+			throw new IllegalArgumentException("Time values can not be negative: " + duration);
+		}
+		setValue(duration.toMillis(), duration.getNano() % NANOS_PER_MILLI);
+	}
+
+	public long getDays() {
+		return millis / MILLIS_PER_DAY;
+	}
+
+	/**
+	 * Returns the number of seconds since the start of the day. This is only
+	 * meaningful for time of day values
+	 *
+	 * @return
+	 */
+	public int getSecondOfDay() {
+		return (int) (millis / MILLIS_PER_SECOND);
+	}
+
+	public int getHour() {
+		return (int) (millis / MILLIS_PER_HOUR);
+	}
+
+	public int getMinute() {
+		return (int) (millis / MILLIS_PER_MINUTE % 60);
+	}
+
+	public int getSecond() {
+		return (int) (millis / MILLIS_PER_SECOND % 60);
+	}
+
+	public int getMillisecond() {
+		return (int) (millis % MILLIS_PER_SECOND);
+	}
+
+	public void setHour(int hour) {
+		setValue(hour, getMinute(), getSecond());
+	}
+
+	public void setMinute(int minute) {
+		setValue(getHour(), minute, getSecond());
+	}
+
+	public void setSecond(int second) {
+		setValue(getHour(), getMinute(), second);
+	}
+
+	/**
+	 * Sets all the parts of the value in a single step, listeners are notified
+	 * at most once
+	 *
+	 * @param hour
+	 * @param minute
+	 * @param second
+	 */
+	public void setValue(int hour, int minute, int second) {
+		if (hour < 0) {
+			throw new IllegalArgumentException("Hour can not be negative: " + hour);
+		}
+		if (minute < 0 || minute > 59) {
+			throw new IllegalArgumentException("Minute must be between 0 and 59: " + minute);
+		}
+		if (second < 0 || second > 59) {
+			throw new IllegalArgumentException("Second must be between 0 and 59: " + second);
+		}
+		setValue(hour * MILLIS_PER_HOUR
+						+ minute * MILLIS_PER_MINUTE
+						+ second * MILLIS_PER_SECOND
+						+ millis % MILLIS_PER_SECOND, nanos);
+	}
+
+	public void addChangeListener(ChangeListener listener) {
+		listenerList.add(ChangeListener.class, listener);
+	}
+
+	public void removeChangeListener(ChangeListener listener) {
+		listenerList.remove(ChangeListener.class, listener);
+	}
+
+	protected void fireStateChanged() {
+		Object[] listeners = listenerList.getListenerList();
+		for (int index = listeners.length - 2; index >= 0; index -= 2) {
+			if (listeners[index] == ChangeListener.class) {
+				if (changeEvent == null) {
+					changeEvent = new ChangeEvent(this);
+				}
+				((ChangeListener) listeners[index + 1]).stateChanged(changeEvent);
+			}
+		}
+	}
+
+}
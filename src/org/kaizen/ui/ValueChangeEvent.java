@@ -0,0 +1,28 @@
+package org.kaizen.ui;
+
+import java.util.EventObject;
+
+/**
+ * Describes a change to the committed value of a time field. Values are in
+ * milliseconds
+ */
+public class ValueChangeEvent extends EventObject {
+
+	private final long oldValue;
+	private final long newValue;
+
+	public ValueChangeEvent(Object source, long oldValue, long newValue) {
+		super(source);
+		this.oldValue = oldValue;
+		this.newValue = newValue;
+	}
+
+	public long getOldValue() {
+		return oldValue;
+	}
+
+	public long getNewValue() {
+		return newValue;
+	}
+
+}
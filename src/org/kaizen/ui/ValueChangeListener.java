@@ -0,0 +1,16 @@
+package org.kaizen.ui;
+
+import java.util.EventListener;
+
+/**
+ * Notified when the committed value of a time field changes.
+ *
+ * Changes are coalesced, a burst of edits made within the same Event
+ * Dispatching Thread cycle (for example setting the hours, minutes and
+ * seconds of a duration) generates a single event.
+ */
+public interface ValueChangeListener extends EventListener {
+
+	public void valueChanged(ValueChangeEvent evt);
+
+}
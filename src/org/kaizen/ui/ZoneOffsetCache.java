@@ -0,0 +1,97 @@
+package org.kaizen.ui;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.zone.ZoneOffsetTransition;
+import java.time.zone.ZoneRules;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Caches the UTC offset of a time zone for the current transition window.
+ *
+ * Between two daylight saving transitions the offset of a zone is constant, so
+ * once the window containing an instant is known, converting any other instant
+ * within that window to local time is a range check and an addition. The
+ * window is only recalculated when an instant falls outside of it, which for a
+ * clock moving forward is once per transition.
+ */
+final class ZoneOffsetCache {
+
+	private static final ConcurrentMap<ZoneId, ZoneOffsetCache> CACHES = new ConcurrentHashMap<>();
+
+	private final ZoneRules rules;
+	private volatile Window window;
+
+	private ZoneOffsetCache(ZoneId zone) {
+		rules = zone.getRules();
+	}
+
+	/**
+	 * Returns the shared cache for the zone
+	 *
+	 * @param zone
+	 * @return
+	 */
+	static ZoneOffsetCache forZone(ZoneId zone) {
+		ZoneOffsetCache cache = CACHES.get(zone);
+		if (cache == null) {
+			cache = new ZoneOffsetCache(zone);
+			ZoneOffsetCache existing = CACHES.putIfAbsent(zone, cache);
+			if (existing != null) {
+				cache = existing;
+			}
+		}
+		return cache;
+	}
+
+	/**
+	 * Returns the offset, in seconds, of the zone at the given instant
+	 *
+	 * @param epochMillis
+	 * @return
+	 */
+	int getOffsetSeconds(long epochMillis) {
+		Window current = window;
+		if (current == null || epochMillis < current.start || epochMillis >= current.end) {
+			current = createWindow(epochMillis);
+			window = current;
+		}
+		return current.offsetSeconds;
+	}
+
+	private Window createWindow(long epochMillis) {
+		if (rules.isFixedOffset()) {
+			return new Window(Long.MIN_VALUE, Long.MAX_VALUE, rules.getOffset(Instant.EPOCH));
+		}
+		Instant instant = Instant.ofEpochMilli(epochMillis);
+		ZoneOffset offset = rules.getOffset(instant);
+
+		long start = epochMillis;
+		ZoneOffsetTransition previous = rules.previousTransition(instant);
+		if (previous == null) {
+			start = Long.MIN_VALUE;
+		} else if (previous.getOffsetAfter().equals(offset)) {
+			start = previous.toEpochSecond() * 1000L;
+		}
+
+		ZoneOffsetTransition next = rules.nextTransition(instant);
+		long end = next == null ? Long.MAX_VALUE : next.toEpochSecond() * 1000L;
+		return new Window(start, end, offset);
+	}
+
+	private static final class Window {
+
+		private final long start;
+		private final long end;
+		private final int offsetSeconds;
+
+		private Window(long start, long end, ZoneOffset offset) {
+			this.start = start;
+			this.end = end;
+			this.offsetSeconds = offset.getTotalSeconds();
+		}
+	}
+
+}
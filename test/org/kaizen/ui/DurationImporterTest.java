@@ -0,0 +1,147 @@
+package org.kaizen.ui;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Checks the chunk boundary handling of the importer by importing the same
+ * file with every chunk size from a single byte up to the whole file and
+ * comparing the results with a single chunk import.
+ */
+public class DurationImporterTest {
+
+	private static final long HOUR = TimeValueModel.MILLIS_PER_HOUR;
+	private static final long MINUTE = TimeValueModel.MILLIS_PER_MINUTE;
+	private static final long SECOND = TimeValueModel.MILLIS_PER_SECOND;
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	/**
+	 * The rows and rejects of an import
+	 */
+	private static class Result {
+
+		private final long[] durations;
+		private final List<String> rejects = new ArrayList<>();
+
+		public Result(DurationImporter importer, Path file) throws IOException {
+			durations = importer.importFile(file, new DurationImporter.RejectHandler() {
+				@Override
+				public void rejected(long line, long offset, int errorCode) {
+					rejects.add(line + "@" + offset + "=" + errorCode);
+				}
+			});
+		}
+	}
+
+	private Path write(String content) throws IOException {
+		Path file = folder.newFile().toPath();
+		Files.write(file, content.getBytes(StandardCharsets.ISO_8859_1));
+		return file;
+	}
+
+	/**
+	 * Imports the content as a single chunk, then checks every smaller chunk
+	 * size gives the same rows and rejects
+	 */
+	private Result importAllChunkSizes(String content) throws IOException {
+		Path file = write(content);
+		Result expected = new Result(new DurationImporter(), file);
+		for (int chunkSize = 1; chunkSize <= content.length() + 1; chunkSize++) {
+			DurationImporter importer = new DurationImporter();
+			importer.setChunkSize(chunkSize);
+			Result actual = new Result(importer, file);
+			assertArrayEquals("Chunk size " + chunkSize, expected.durations, actual.durations);
+			assertEquals("Chunk size " + chunkSize, expected.rejects, actual.rejects);
+		}
+		return expected;
+	}
+
+	@Test
+	public void testEmptyFile() throws IOException {
+		Result result = importAllChunkSizes("");
+		assertEquals(0, result.durations.length);
+		assertEquals(0, result.rejects.size());
+	}
+
+	@Test
+	public void testTrailingNewline() throws IOException {
+		Result result = importAllChunkSizes("01:00:00\n02:30\n");
+		assertArrayEquals(new long[]{HOUR, 2 * HOUR + 30 * MINUTE}, result.durations);
+	}
+
+	@Test
+	public void testNoTrailingNewline() throws IOException {
+		Result result = importAllChunkSizes("01:00:00\n02:30");
+		assertArrayEquals(new long[]{HOUR, 2 * HOUR + 30 * MINUTE}, result.durations);
+	}
+
+	@Test
+	public void testCrlf() throws IOException {
+		Result result = importAllChunkSizes("123:45.06\r\n0:00:01\r\n7:08\r\n");
+		assertArrayEquals(new long[]{123 * HOUR + 45 * MINUTE + 6 * SECOND, SECOND, 7 * HOUR + 8 * MINUTE}, result.durations);
+	}
+
+	@Test
+	public void testLineStartingAtChunkStart() throws IOException {
+		// The second line starts exactly at the start of the second chunk,
+		// which is only seen because the mapping starts a byte early
+		Path file = write("01:00\n02:00\n03:00\n");
+		DurationImporter importer = new DurationImporter();
+		importer.setChunkSize(6);
+		assertArrayEquals(new long[]{HOUR, 2 * HOUR, 3 * HOUR}, importer.importFile(file));
+	}
+
+	@Test
+	public void testLinesCrossingChunks() throws IOException {
+		Path file = write("1:02:03\n44:05\n6:07.08\n");
+		DurationImporter importer = new DurationImporter();
+		importer.setChunkSize(4);
+		assertArrayEquals(new long[]{HOUR + 2 * MINUTE + 3 * SECOND, 44 * HOUR + 5 * MINUTE, 6 * HOUR + 7 * MINUTE + 8 * SECOND},
+						importer.importFile(file));
+	}
+
+	@Test
+	public void testLongLine() throws IOException {
+		char[] digits = new char[100];
+		Arrays.fill(digits, '1');
+		String content = "01:00\n" + new String(digits) + ":00\n02:00\n";
+		Result result = importAllChunkSizes(content);
+		assertArrayEquals(new long[]{HOUR, TimeParser.INVALID_LENGTH, 2 * HOUR}, result.durations);
+		assertEquals(Arrays.asList("1@6=" + TimeParser.INVALID_LENGTH), result.rejects);
+	}
+
+	@Test
+	public void testRejects() throws IOException {
+		Result result = importAllChunkSizes("01:00\n\nabc\n1:60\n02:00");
+		assertArrayEquals(new long[]{HOUR, TimeParser.EMPTY, TimeParser.INVALID_CHARACTER, TimeParser.OUT_OF_RANGE, 2 * HOUR},
+						result.durations);
+		assertEquals(Arrays.asList("1@6=" + TimeParser.EMPTY, "2@7=" + TimeParser.INVALID_CHARACTER, "3@11=" + TimeParser.OUT_OF_RANGE),
+						result.rejects);
+	}
+
+	@Test
+	public void testMaximumHourDigits() throws IOException {
+		Path file = write("999:00\n1000:00\n");
+		DurationImporter importer = new DurationImporter();
+		importer.setMaximumHourDigits(3);
+		assertArrayEquals(new long[]{999 * HOUR, TimeParser.OUT_OF_RANGE}, importer.importFile(file));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testInvalidMaximumHourDigits() {
+		new DurationImporter().setMaximumHourDigits(10);
+	}
+
+}
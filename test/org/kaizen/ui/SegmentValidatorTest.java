@@ -0,0 +1,95 @@
+package org.kaizen.ui;
+
+import org.junit.Test;
+import org.kaizen.ui.SegmentValidator.SegmentType;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks that typing a value one digit at a time accepts exactly the values
+ * {@link TimeParser} parses.
+ */
+public class SegmentValidatorTest {
+
+	private static final SegmentType[] FIXED_TYPES = {
+		SegmentType.HOUR, SegmentType.MINUTE, SegmentType.SECOND, SegmentType.MILLISECOND
+	};
+
+	/**
+	 * Types the text into an empty segment, one digit at a time at the end,
+	 * the same as the document filter does
+	 */
+	private static boolean type(SegmentType type, boolean use24HourClock, String text) {
+		char[] digits = new char[text.length()];
+		for (int offset = 0; offset < text.length(); offset++) {
+			char c = text.charAt(offset);
+			int previous = offset > 0 ? digits[offset - 1] - '0' : SegmentValidator.NO_DIGIT;
+			if (!SegmentValidator.accepts(type, use24HourClock, offset, previous, c)
+							|| !SegmentValidator.acceptsValue(type, use24HourClock, SegmentValidator.valueAfter(digits, offset, offset, c))) {
+				return false;
+			}
+			digits[offset] = c;
+		}
+		return true;
+	}
+
+	private static String pad(int value, int width) {
+		StringBuilder text = new StringBuilder(Integer.toString(value));
+		while (text.length() < width) {
+			text.insert(0, '0');
+		}
+		return text.toString();
+	}
+
+	@Test
+	public void testTypedValuesAgreeWithParser() {
+		for (SegmentType type : FIXED_TYPES) {
+			for (int clock = 0; clock < 2; clock++) {
+				boolean use24HourClock = clock == 1;
+				int width = type.getWidth();
+				int count = (int) Math.pow(10, width);
+				for (int value = 0; value < count; value++) {
+					String text = pad(value, width);
+					boolean parsed = !TimeParser.isError(TimeParser.parseSegment(type, use24HourClock, text, 0, width));
+					assertEquals(type + " " + text + " 24h=" + use24HourClock, parsed, type(type, use24HourClock, text));
+				}
+			}
+		}
+	}
+
+	@Test
+	public void testDigitTypedBeforeExistingDigit() {
+		// "2" typed in front of "5" would make 25
+		assertTrue(SegmentValidator.accepts(SegmentType.HOUR, true, 0, SegmentValidator.NO_DIGIT, '2'));
+		assertFalse(SegmentValidator.acceptsValue(SegmentType.HOUR, true, SegmentValidator.valueAfter(new char[]{'5'}, 1, 0, '2')));
+		assertTrue(SegmentValidator.acceptsValue(SegmentType.HOUR, true, SegmentValidator.valueAfter(new char[]{'5'}, 1, 0, '1')));
+		// "1" typed in front of "5" would make 15
+		assertFalse(SegmentValidator.acceptsValue(SegmentType.HOUR, false, SegmentValidator.valueAfter(new char[]{'5'}, 1, 0, '1')));
+		assertTrue(SegmentValidator.acceptsValue(SegmentType.HOUR, false, SegmentValidator.valueAfter(new char[]{'2'}, 1, 0, '1')));
+	}
+
+	@Test
+	public void testRejectsNonDigits() {
+		for (SegmentType type : SegmentType.values()) {
+			assertFalse(SegmentValidator.accepts(type, true, 0, SegmentValidator.NO_DIGIT, 'a'));
+			assertFalse(SegmentValidator.accepts(type, true, 0, SegmentValidator.NO_DIGIT, ':'));
+		}
+	}
+
+	@Test
+	public void testFixedSegmentsRejectDigitsPastTheirWidth() {
+		assertFalse(SegmentValidator.accepts(SegmentType.HOUR, true, 2, 1, '0'));
+		assertFalse(SegmentValidator.accepts(SegmentType.MINUTE, true, 2, 1, '0'));
+		assertTrue(SegmentValidator.accepts(SegmentType.DURATION_HOUR, true, 5, 1, '0'));
+	}
+
+	@Test
+	public void testParseValue() {
+		assertEquals(12, SegmentValidator.parseValue(SegmentType.HOUR, false, "12", 0));
+		assertEquals(SegmentValidator.INVALID, SegmentValidator.parseValue(SegmentType.HOUR, false, "15", 0));
+		assertEquals(15, SegmentValidator.parseValue(SegmentType.HOUR, true, "15", 0));
+		assertEquals(SegmentValidator.INVALID, SegmentValidator.parseValue(SegmentType.HOUR, true, "15", 1));
+	}
+
+}
@@ -0,0 +1,142 @@
+package org.kaizen.ui;
+
+import org.junit.Test;
+import org.kaizen.ui.SegmentValidator.SegmentType;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks the values and error codes returned by the strict and lenient
+ * parsers.
+ */
+public class TimeParserTest {
+
+	private static final long HOUR = TimeValueModel.MILLIS_PER_HOUR;
+	private static final long MINUTE = TimeValueModel.MILLIS_PER_MINUTE;
+	private static final long SECOND = TimeValueModel.MILLIS_PER_SECOND;
+
+	private static int segment(SegmentType type, boolean use24HourClock, String text) {
+		int value = TimeParser.parseSegment(type, use24HourClock, text, 0, text.length());
+		// Both forms of the text must agree
+		assertEquals(value, TimeParser.parseSegment(type, use24HourClock, text.toCharArray(), 0, text.length()));
+		return value;
+	}
+
+	private static int packedTime(String text, boolean use24HourClock) {
+		int value = TimeParser.parsePackedTime(text, 0, text.length(), use24HourClock);
+		assertEquals(value, TimeParser.parsePackedTime(text.toCharArray(), 0, text.length(), use24HourClock));
+		return value;
+	}
+
+	private static long packedDuration(String text) {
+		long value = TimeParser.parsePackedDuration(text, 0, text.length());
+		assertEquals(value, TimeParser.parsePackedDuration(text.toCharArray(), 0, text.length()));
+		return value;
+	}
+
+	@Test
+	public void testSegment() {
+		assertEquals(23, segment(SegmentType.HOUR, true, "23"));
+		assertEquals(12, segment(SegmentType.HOUR, false, "12"));
+		assertEquals(0, segment(SegmentType.HOUR, false, "00"));
+		assertEquals(59, segment(SegmentType.MINUTE, true, "59"));
+		// Only the width of a fixed segment is considered
+		assertEquals(12, segment(SegmentType.HOUR, true, "123"));
+		assertEquals(12345, segment(SegmentType.DURATION_HOUR, true, "12345"));
+	}
+
+	@Test
+	public void testSegmentErrors() {
+		assertEquals(TimeParser.EMPTY, segment(SegmentType.HOUR, true, ""));
+		assertEquals(TimeParser.INVALID_CHARACTER, segment(SegmentType.HOUR, true, "1a"));
+		assertEquals(TimeParser.OUT_OF_RANGE, segment(SegmentType.HOUR, true, "24"));
+		assertEquals(TimeParser.OUT_OF_RANGE, segment(SegmentType.MINUTE, true, "60"));
+		assertEquals(TimeParser.OUT_OF_RANGE, segment(SegmentType.DURATION_HOUR, true, "2147483648"));
+	}
+
+	@Test
+	public void testTwelveHourClockRejectsAfternoonHours() {
+		for (int hour = 13; hour <= 23; hour++) {
+			assertEquals(TimeParser.OUT_OF_RANGE, segment(SegmentType.HOUR, false, Integer.toString(hour)));
+		}
+		assertEquals(TimeParser.OUT_OF_RANGE, packedTime("15:30", false));
+		int time = packedTime("15:30", true);
+		assertEquals(15, TimeParser.packedHour(time));
+		assertEquals(30, TimeParser.packedMinute(time));
+	}
+
+	@Test
+	public void testPackedTimeErrors() {
+		assertEquals(TimeParser.EMPTY, packedTime("", true));
+		assertEquals(TimeParser.EMPTY, packedTime("12", true));
+		assertEquals(TimeParser.INVALID_LENGTH, packedTime("1:30", true));
+		assertEquals(TimeParser.INVALID_LENGTH, packedTime("12:3", true));
+		assertEquals(TimeParser.INVALID_CHARACTER, packedTime("12-30", true));
+		assertEquals(TimeParser.INVALID_CHARACTER, packedTime("12:30x", true));
+		assertEquals(TimeParser.OUT_OF_RANGE, packedTime("24:00", true));
+		assertEquals(TimeParser.OUT_OF_RANGE, packedTime("12:60", true));
+	}
+
+	@Test
+	public void testPackedDuration() {
+		long duration = packedDuration("123:45.06");
+		assertEquals(123, TimeParser.packedHours(duration));
+		assertEquals(45, TimeParser.packedMinutes(duration));
+		assertEquals(6, TimeParser.packedSeconds(duration));
+		assertEquals(123 * HOUR + 45 * MINUTE + 6 * SECOND, TimeParser.packedDurationToMillis(duration));
+		assertEquals(7 * HOUR + 8 * MINUTE, TimeParser.packedDurationToMillis(packedDuration("7:08")));
+	}
+
+	@Test
+	public void testPackedDurationErrors() {
+		assertEquals(TimeParser.EMPTY, packedDuration(""));
+		assertEquals(TimeParser.EMPTY, packedDuration("12"));
+		assertEquals(TimeParser.INVALID_CHARACTER, packedDuration(":30"));
+		assertEquals(TimeParser.INVALID_CHARACTER, packedDuration("1-30"));
+		assertEquals(TimeParser.INVALID_LENGTH, packedDuration("1:3"));
+		assertEquals(TimeParser.INVALID_LENGTH, packedDuration("1:30:5"));
+		assertEquals(TimeParser.OUT_OF_RANGE, packedDuration("1:60"));
+		assertEquals(TimeParser.OUT_OF_RANGE, packedDuration("1:00:60"));
+		assertEquals(TimeParser.INVALID_CHARACTER, packedDuration("1:00:00:00"));
+	}
+
+	@Test
+	public void testMaximumHourDigits() {
+		assertEquals(99 * HOUR, TimeParser.packedDurationToMillis(TimeParser.parsePackedDuration("99:00", 0, 5, 2)));
+		assertEquals(TimeParser.OUT_OF_RANGE, TimeParser.parsePackedDuration("100:00", 0, 6, 2));
+		assertEquals(999, TimeParser.largestValue(3));
+		assertEquals(Integer.MAX_VALUE, TimeParser.largestValue(10));
+	}
+
+	@Test
+	public void testTimeOfDay() {
+		assertEquals(12 * HOUR + 34 * MINUTE, TimeParser.parseTimeOfDay("12:34"));
+		assertEquals(13 * HOUR, TimeParser.parseTimeOfDay("1pm"));
+		assertEquals(30 * MINUTE, TimeParser.parseTimeOfDay("12:30 a.m."));
+		assertEquals(TimeParser.OUT_OF_RANGE, TimeParser.parseTimeOfDay("13pm"));
+		assertEquals(TimeParser.OUT_OF_RANGE, TimeParser.parseTimeOfDay("24:00"));
+		assertEquals(TimeParser.INVALID_LENGTH, TimeParser.parseTimeOfDay("123:00"));
+		assertEquals(TimeParser.INVALID_CHARACTER, TimeParser.parseTimeOfDay("12:34x"));
+		assertEquals(TimeParser.EMPTY, TimeParser.parseTimeOfDay("  "));
+	}
+
+	@Test
+	public void testDuration() {
+		assertEquals(HOUR + 30 * MINUTE, TimeParser.parseDuration("1h30m"));
+		assertEquals(90 * MINUTE, TimeParser.parseDuration("90m"));
+		assertEquals(HOUR + 5 * MINUTE + 30 * SECOND, TimeParser.parseDuration("1h 5m 30s"));
+		assertEquals(123 * HOUR + 45 * MINUTE + 6 * SECOND, TimeParser.parseDuration("123:45.06"));
+		assertEquals(TimeParser.INVALID, TimeParser.parseDuration("30m1h"));
+		assertEquals(TimeParser.INVALID, TimeParser.parseDuration("1h1h"));
+		assertEquals(TimeParser.INVALID, TimeParser.parseDuration("1:30 pm"));
+		assertEquals(TimeParser.OUT_OF_RANGE, TimeParser.parseDuration("1:60"));
+	}
+
+	@Test
+	public void testWholeValue() {
+		assertTrue(TimeParser.isWholeValue("12:30"));
+		assertFalse(TimeParser.isWholeValue("1230"));
+	}
+
+}